@@ -0,0 +1,17 @@
+package com.chat.realtimechat.config;
+
+import com.chat.realtimechat.util.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    // Hibernate obtains @SnowflakeId generators from the Spring context (hibernate.cdi.extensions),
+    // so entities and the batch writer share this instance.
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(@Value("${chat.id.nodeId:0}") int nodeId) {
+        return new SnowflakeIdGenerator(nodeId);
+    }
+}
@@ -0,0 +1,36 @@
+package com.chat.realtimechat.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    public static final String MAINTENANCE_SCHEDULER = "maintenanceScheduler";
+
+    // Default for @Scheduled, the short flushers (typing, summaries, read cursors) run here and
+    // must not wait behind one another or behind maintenance work.
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${chat.scheduling.poolSize:4}") int poolSize) {
+        return scheduler("chat-scheduler-", poolSize);
+    }
+
+    // Archiving, search backfill, partition DDL and pruning can run for minutes.
+    @Bean(MAINTENANCE_SCHEDULER)
+    public ThreadPoolTaskScheduler maintenanceScheduler(@Value("${chat.scheduling.maintenancePoolSize:2}") int poolSize) {
+        return scheduler("chat-maintenance-", poolSize);
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(String threadNamePrefix, int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(poolSize, 1));
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(10);
+        return scheduler;
+    }
+}
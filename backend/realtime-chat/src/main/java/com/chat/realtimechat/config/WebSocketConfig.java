@@ -1,9 +1,21 @@
 package com.chat.realtimechat.config;
 
+import com.chat.realtimechat.exception.chat.GroupAccessDeniedException;
+import com.chat.realtimechat.exception.chat.GroupNotFoundException;
+import com.chat.realtimechat.repository.chat.ChatGroupMemberRepository;
+import com.chat.realtimechat.service.chat.GroupMembershipCache;
 import com.chat.realtimechat.service.security.CustomUserDetailsService;
 import com.chat.realtimechat.util.JwtUtil;
+import com.chat.realtimechat.websocket.backpressure.OutboundBackpressure;
+import com.chat.realtimechat.websocket.codec.PayloadCodecInterceptor;
+import com.chat.realtimechat.websocket.executor.StripedChannelExecutor;
+import com.chat.realtimechat.websocket.executor.VirtualThreadChannelExecutor;
+import com.chat.realtimechat.websocket.ratelimit.InboundRateLimitInterceptor;
+import com.chat.realtimechat.websocket.replay.UserEventReplayer;
+import com.chat.realtimechat.websocket.subscription.GroupSubscriptionRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
@@ -21,7 +33,11 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.StompWebSocketEndpointRegistration;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.security.Principal;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -42,14 +58,66 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${RABBITMQ_PASS:guest}")
     private String passcode;
 
+    @Value("${chat.websocket.messageSizeLimit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${chat.websocket.sendBufferSizeLimit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${chat.websocket.sendTimeLimitMs:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${chat.websocket.codec.binaryEnabled:false}")
+    private boolean binaryCodecEnabled;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${chat.websocket.inbound.corePoolSize:16}")
+    private int inboundCorePoolSize;
+
+    @Value("${chat.websocket.inbound.maxPoolSize:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${chat.websocket.inbound.queueCapacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${chat.websocket.outbound.corePoolSize:16}")
+    private int outboundCorePoolSize;
+
+    @Value("${chat.websocket.outbound.maxPoolSize:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${chat.websocket.outbound.queueCapacity:20000}")
+    private int outboundQueueCapacity;
+
+    private static final String TOPIC_PREFIX = "/topic";
+    private static final String PUBLIC_TOPIC = "/topic/public";
+
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final GroupMembershipCache groupMembershipCache;
+    private final ChatGroupMemberRepository chatGroupMemberRepository;
+    // Looked up lazily, the replayer needs the outbound channel this configurer helps build.
+    private final ObjectProvider<UserEventReplayer> userEventReplayer;
+    private final OutboundBackpressure outboundBackpressure;
+    private final PayloadCodecInterceptor payloadCodecInterceptor;
+    private final StripedChannelExecutor stripedChannelExecutor;
+    private final InboundRateLimitInterceptor inboundRateLimitInterceptor;
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+
+        // Plain WebSocket without the SockJS envelope. Clients on it may negotiate a binary codec
+        // where that is enabled, no client does by default so none of its work is done.
+        StompWebSocketEndpointRegistration nativeEndpoint = registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*");
+        if (binaryCodecEnabled) {
+            nativeEndpoint.addInterceptors(payloadCodecInterceptor);
+        }
     }
 
     @Override
@@ -65,10 +133,52 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.setApplicationDestinationPrefixes("/app");
 
         registry.setUserDestinationPrefix("/user");
+
+        // Frames for one session leave in the order they were published, the outbound channel
+        // would otherwise hand them to its executor in parallel and undo the inbound lane order.
+        registry.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(messageSizeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .addDecoratorFactory(outboundBackpressure);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            registration.executor(new VirtualThreadChannelExecutor("ws-outbound-"));
+        } else {
+            registration.taskExecutor()
+                    .corePoolSize(outboundCorePoolSize)
+                    .maxPoolSize(outboundMaxPoolSize)
+                    .queueCapacity(outboundQueueCapacity);
+        }
+        registration.interceptors(outboundBackpressure);
+        if (binaryCodecEnabled) {
+            registration.interceptors(payloadCodecInterceptor);
+        }
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Lanes keep each group's messages in order and take precedence over the virtual-thread
+        // executor, with virtual threads enabled the lanes themselves run on virtual threads and
+        // there are more of them. Without lanes (lanes=0), handlers blocked on JDBC and Redis
+        // park on virtual threads instead of exhausting a fixed pool and freezing every other session.
+        if (stripedChannelExecutor.isEnabled()) {
+            registration.executor(stripedChannelExecutor);
+        } else if (virtualThreads) {
+            registration.executor(new VirtualThreadChannelExecutor("ws-inbound-"));
+        } else {
+            registration.taskExecutor()
+                    .corePoolSize(inboundCorePoolSize)
+                    .maxPoolSize(inboundMaxPoolSize)
+                    .queueCapacity(inboundQueueCapacity);
+        }
         registration.interceptors(new ChannelInterceptor() {
             @Override
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -95,9 +205,46 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                             log.info("Użytkownik {} pomyślnie połączony przez WebSocket", userDetails.getUsername());
                         }
                     }
+                    userEventReplayer.getObject().connecting(accessor);
+                    if (binaryCodecEnabled) {
+                        payloadCodecInterceptor.connecting(accessor);
+                    }
+                } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+                    authorizeTopicSubscription(accessor);
+                    userEventReplayer.getObject().subscribing(accessor);
                 }
                 return message;
             }
-        });
+        }, inboundRateLimitInterceptor);
+    }
+
+    private void authorizeTopicSubscription(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX)) {
+            return;
+        }
+
+        // RabbitMQ treats * and # in a topic as wildcards, only exact destinations are allowed.
+        if (PUBLIC_TOPIC.equals(destination)) {
+            return;
+        }
+
+        Principal user = accessor.getUser();
+        Long groupId = GroupSubscriptionRegistry.parseGroupId(destination);
+        if (user == null || groupId == null) {
+            throw new GroupAccessDeniedException("You are not a member of this group");
+        }
+
+        // The cache answers most denials, a member it lists is confirmed against the database so
+        // that a removal the cache has not heard of yet cannot subscribe.
+        try {
+            if (groupMembershipCache.getMembers(groupId).containsUsername(user.getName())
+                    && chatGroupMemberRepository.isActiveMember(groupId, user.getName())) {
+                return;
+            }
+        } catch (GroupNotFoundException ignored) {
+        }
+
+        throw new GroupAccessDeniedException("You are not a member of this group");
     }
 }
\ No newline at end of file
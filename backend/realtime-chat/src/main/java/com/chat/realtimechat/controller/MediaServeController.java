@@ -1,5 +1,8 @@
 package com.chat.realtimechat.controller;
 
+import com.chat.realtimechat.model.enums.RateLimitType;
+import com.chat.realtimechat.service.chat.AttachmentService;
+import com.chat.realtimechat.service.chat.RateLimiter;
 import com.chat.realtimechat.util.UploadUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
@@ -11,6 +14,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.security.Principal;
 
 @RestController
 @RequestMapping("/api/files")
@@ -18,13 +22,14 @@ import java.nio.file.Files;
 public class MediaServeController {
 
     private final UploadUtils uploadUtils;
+    private final AttachmentService attachmentService;
+    private final RateLimiter rateLimiter;
 
     @PostMapping("/upload")
-    public ResponseEntity<String> upload(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<String> upload(@RequestParam("file") MultipartFile file, Principal principal) {
+        rateLimiter.acquire(RateLimitType.UPLOAD, principal.getName());
         try {
-            String savedFileName = uploadUtils.saveFile(file);
-
-            String fileUrl = "/api/files/" + savedFileName;
+            String fileUrl = attachmentService.store(file);
 
             return ResponseEntity.ok(fileUrl);
         } catch (IOException e) {
@@ -2,12 +2,16 @@ package com.chat.realtimechat.controller.chat;
 
 import com.chat.realtimechat.model.dto.request.ChatMessageRequest;
 import com.chat.realtimechat.model.dto.request.StatusUpdateRequest;
-import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.dto.response.AttachmentResponse;
+import com.chat.realtimechat.model.dto.response.CursorPageResponse;
+import com.chat.realtimechat.model.dto.response.MessageSearchResultResponse;
 import com.chat.realtimechat.model.dto.response.OnlineInfoResponse;
-import com.chat.realtimechat.model.entity.chat.ChatMessage;
+import com.chat.realtimechat.model.dto.response.SyncResponse;
 import com.chat.realtimechat.model.enums.MessageContentType;
-import com.chat.realtimechat.repository.chat.ChatMessageRepository;
+import com.chat.realtimechat.service.chat.AttachmentService;
 import com.chat.realtimechat.service.chat.ChatService;
+import com.chat.realtimechat.service.chat.MessageSearchService;
+import com.chat.realtimechat.service.chat.SyncService;
 import com.chat.realtimechat.service.chat.UserPresenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,7 +26,6 @@ import org.springframework.web.bind.annotation.*;
 import java.security.Principal;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Controller
 @RequiredArgsConstructor
@@ -31,7 +34,9 @@ public class ChatController {
 
     private final UserPresenceService presenceService;
     private final ChatService chatService;
-    private final ChatMessageRepository chatMessageRepository;
+    private final AttachmentService attachmentService;
+    private final MessageSearchService messageSearchService;
+    private final SyncService syncService;
 
     @MessageMapping("/chat.sendMessage")
     public void sendMessage(@Payload ChatMessageRequest request, Principal principal) {
@@ -52,7 +57,7 @@ public class ChatController {
 
     @GetMapping("/api/chat/history/{groupId}")
     @ResponseBody
-    public ResponseEntity<List<ChatMessageResponse>> getChatHistory(
+    public ResponseEntity<List<?>> getChatHistory(
             @PathVariable Long groupId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
@@ -66,6 +71,46 @@ public class ChatController {
         );
     }
 
+    @GetMapping("/api/chat/history/{groupId}/cursor")
+    @ResponseBody
+    public ResponseEntity<CursorPageResponse<?>> getChatHistoryPage(
+            @PathVariable Long groupId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            Principal principal
+    ) {
+        return chatService.loadGroupHistoryPage(
+                groupId,
+                principal,
+                before,
+                after,
+                size
+        );
+    }
+
+    @GetMapping("/api/chat/search")
+    @ResponseBody
+    public ResponseEntity<CursorPageResponse<MessageSearchResultResponse>> searchMessages(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Long groupId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Principal principal
+    ) {
+        return ResponseEntity.ok(messageSearchService.search(principal.getName(), query, groupId, cursor, size));
+    }
+
+    @GetMapping("/api/chat/sync")
+    @ResponseBody
+    public ResponseEntity<SyncResponse> sync(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int size,
+            Principal principal
+    ) {
+        return ResponseEntity.ok(syncService.sync(principal.getName(), cursor, size));
+    }
+
     @PostMapping("/api/chat/heartbeat")
     @ResponseBody
     public ResponseEntity<Void> heartbeat(Principal principal) {
@@ -87,27 +132,27 @@ public class ChatController {
         );
     }
 
-    @GetMapping("api/messages/group/{groupId}/images")
+    @GetMapping("/api/messages/group/{groupId}/images")
     @ResponseBody
-    public ResponseEntity<List<String>> getGroupMedia(@PathVariable Long groupId) {
-        List<ChatMessage> imagesMessages = chatMessageRepository.findByGroupIdAndContentType(groupId, MessageContentType.IMAGE);
-
-        List<String> imageUrls = imagesMessages.stream()
-                .map(ChatMessage::getContent)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(imageUrls);
+    public ResponseEntity<CursorPageResponse<AttachmentResponse>> getGroupMedia(
+            @PathVariable Long groupId,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "30") int size,
+            Principal principal
+    ) {
+        return ResponseEntity.ok(attachmentService.getGroupMedia(
+                groupId, principal.getName(), MessageContentType.IMAGE, before, size));
     }
 
     @GetMapping("/api/messages/group/{groupId}/files")
     @ResponseBody
-    public ResponseEntity<List<String>> getGroupMediaFiles(@PathVariable Long groupId) {
-        List<ChatMessage> filesMessages = chatMessageRepository.findByGroupIdAndContentType(groupId, MessageContentType.FILE);
-
-        List<String> fileUrls = filesMessages.stream()
-                .map(ChatMessage::getContent)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(fileUrls);
+    public ResponseEntity<CursorPageResponse<AttachmentResponse>> getGroupMediaFiles(
+            @PathVariable Long groupId,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "30") int size,
+            Principal principal
+    ) {
+        return ResponseEntity.ok(attachmentService.getGroupMedia(
+                groupId, principal.getName(), MessageContentType.FILE, before, size));
     }
 }
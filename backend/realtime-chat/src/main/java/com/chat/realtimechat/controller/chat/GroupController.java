@@ -5,6 +5,7 @@ import com.chat.realtimechat.model.dto.request.ChatGroupRequest;
 import com.chat.realtimechat.model.dto.request.GroupMembersRequest;
 import com.chat.realtimechat.model.dto.request.UpdateGroupRequest;
 import com.chat.realtimechat.model.dto.response.ChatGroupResponse;
+import com.chat.realtimechat.model.dto.response.UnreadCountsResponse;
 import com.chat.realtimechat.model.entity.chat.ChatGroup;
 import com.chat.realtimechat.service.chat.GroupService;
 import lombok.RequiredArgsConstructor;
@@ -37,6 +38,11 @@ public class GroupController {
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
+    @GetMapping("/unread")
+    public ResponseEntity<UnreadCountsResponse> getUnreadCounts(@AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.status(HttpStatus.OK).body(groupService.getUnreadCounts(userDetails.getUsername()));
+    }
+
     @GetMapping("/{groupId}")
     public ResponseEntity<ChatGroupResponse> getGroupInfo(
             @PathVariable Long groupId,
@@ -5,12 +5,17 @@ import com.chat.realtimechat.exception.auth.UserNotFoundException;
 import com.chat.realtimechat.exception.chat.GroupAccessDeniedException;
 import com.chat.realtimechat.exception.chat.GroupNotFoundException;
 import com.chat.realtimechat.exception.chat.GroupOperationException;
+import com.chat.realtimechat.exception.chat.HistoryPageTooDeepException;
+import com.chat.realtimechat.exception.chat.InvalidCursorException;
+import com.chat.realtimechat.exception.chat.InvalidSearchQueryException;
+import com.chat.realtimechat.exception.chat.RateLimitExceededException;
 import com.chat.realtimechat.exception.friendship.*;
 import com.chat.realtimechat.exception.google.AccountNotConnectedException;
 import com.chat.realtimechat.exception.google.ConnectionExpiredException;
 import com.chat.realtimechat.exception.google.NoAuthenticationException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -157,6 +162,30 @@ public class GlobalExceptionHandler {
         return buildError(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiError> handleInvalidCursor(
+            InvalidCursorException ex,
+            HttpServletRequest request
+    ) {
+        return buildError(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(HistoryPageTooDeepException.class)
+    public ResponseEntity<ApiError> handleHistoryPageTooDeep(
+            HistoryPageTooDeepException ex,
+            HttpServletRequest request
+    ) {
+        return buildError(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(InvalidSearchQueryException.class)
+    public ResponseEntity<ApiError> handleInvalidSearchQuery(
+            InvalidSearchQueryException ex,
+            HttpServletRequest request
+    ) {
+        return buildError(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
+    }
+
     @ExceptionHandler(GroupAccessDeniedException.class)
     public ResponseEntity<ApiError> handleGroupAccessDenied(
             GroupAccessDeniedException ex,
@@ -165,6 +194,17 @@ public class GlobalExceptionHandler {
         return buildError(HttpStatus.FORBIDDEN, ex.getMessage(), request);
     }
 
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ApiError> handleRateLimitExceeded(
+            RateLimitExceededException ex,
+            HttpServletRequest request
+    ) {
+        ResponseEntity<ApiError> error = buildError(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), request);
+        return ResponseEntity.status(error.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.ceilDiv(ex.getRetryAfterMs(), 1000)))
+                .body(error.getBody());
+    }
+
     @ExceptionHandler(FileStorageException.class)
     public ResponseEntity<ApiError> handleFileStorage(
             FileStorageException ex,
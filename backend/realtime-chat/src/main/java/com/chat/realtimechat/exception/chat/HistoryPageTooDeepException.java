@@ -0,0 +1,7 @@
+package com.chat.realtimechat.exception.chat;
+
+public class HistoryPageTooDeepException extends RuntimeException {
+    public HistoryPageTooDeepException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.chat.realtimechat.exception.chat;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
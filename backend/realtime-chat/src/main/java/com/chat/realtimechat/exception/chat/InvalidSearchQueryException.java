@@ -0,0 +1,7 @@
+package com.chat.realtimechat.exception.chat;
+
+public class InvalidSearchQueryException extends RuntimeException {
+    public InvalidSearchQueryException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.chat.realtimechat.exception.chat;
+
+public class MessageQueueFullException extends RuntimeException {
+    public MessageQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.chat.realtimechat.model.dto.projection;
+
+public record GroupAdminRow(
+        Long groupId,
+        Long userId,
+        String email,
+        String username,
+        String name,
+        String surname
+) {
+}
@@ -0,0 +1,12 @@
+package com.chat.realtimechat.model.dto.projection;
+
+import com.chat.realtimechat.model.enums.GroupType;
+
+public record GroupMemberRow(
+        Long groupId,
+        String groupName,
+        GroupType groupType,
+        Long userId,
+        String username
+) {
+}
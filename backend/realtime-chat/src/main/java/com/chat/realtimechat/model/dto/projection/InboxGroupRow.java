@@ -0,0 +1,17 @@
+package com.chat.realtimechat.model.dto.projection;
+
+import com.chat.realtimechat.model.enums.GroupType;
+
+import java.time.LocalDateTime;
+
+public record InboxGroupRow(
+        Long groupId,
+        String name,
+        GroupType type,
+        String imageUrl,
+        String lastMessageContent,
+        LocalDateTime lastMessageTime,
+        LocalDateTime createdAt,
+        boolean muted
+) {
+}
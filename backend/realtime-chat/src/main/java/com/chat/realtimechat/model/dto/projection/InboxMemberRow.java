@@ -0,0 +1,13 @@
+package com.chat.realtimechat.model.dto.projection;
+
+import java.time.LocalDateTime;
+
+public record InboxMemberRow(
+        Long groupId,
+        Long userId,
+        String username,
+        String name,
+        String surname,
+        LocalDateTime lastReadTime
+) {
+}
@@ -0,0 +1,10 @@
+package com.chat.realtimechat.model.dto.projection;
+
+import java.time.LocalDateTime;
+
+public record MediaMessageRow(
+        Long messageId,
+        String content,
+        LocalDateTime timestamp
+) {
+}
@@ -0,0 +1,8 @@
+package com.chat.realtimechat.model.dto.projection;
+
+public record UnreadCountRow(
+        Long groupId,
+        Long unreadCount,
+        Long lastMessageId
+) {
+}
@@ -0,0 +1,41 @@
+package com.chat.realtimechat.model.dto.response;
+
+import com.chat.realtimechat.model.dto.projection.MediaMessageRow;
+import com.chat.realtimechat.model.entity.chat.Attachment;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttachmentResponse {
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long messageId;
+    private String url;
+    private LocalDateTime timestamp;
+    private String originalName;
+    private String mimeType;
+    private Long sizeBytes;
+    private Integer width;
+    private Integer height;
+
+    // Files uploaded before metadata was recorded have no attachment row, they keep just the url.
+    public static AttachmentResponse of(MediaMessageRow row, Attachment attachment) {
+        AttachmentResponse response = new AttachmentResponse();
+        response.setMessageId(row.messageId());
+        response.setUrl(row.content());
+        response.setTimestamp(row.timestamp());
+        if (attachment != null) {
+            response.setOriginalName(attachment.getOriginalName());
+            response.setMimeType(attachment.getMimeType());
+            response.setSizeBytes(attachment.getSizeBytes());
+            response.setWidth(attachment.getWidth());
+            response.setHeight(attachment.getHeight());
+        }
+        return response;
+    }
+}
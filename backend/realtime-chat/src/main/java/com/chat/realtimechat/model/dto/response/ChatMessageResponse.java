@@ -1,14 +1,18 @@
 package com.chat.realtimechat.model.dto.response;
 
 import com.chat.realtimechat.model.entity.chat.ChatMessage;
+import com.chat.realtimechat.model.entity.users.User;
 import com.chat.realtimechat.model.enums.MessageContentType;
 import com.chat.realtimechat.model.enums.UserStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.Data;
 
 import java.time.LocalDateTime;
 
 @Data
 public class ChatMessageResponse {
+    // Snowflake ids exceed the 53 bits a JavaScript number can hold exactly.
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Long id;
     private OnlineInfoResponse sender;
     private String content;
@@ -20,26 +24,39 @@ public class ChatMessageResponse {
     private UserStatus userStatus;
     private ChatMessageResponse parent;
 
+    /**
+     * Maps a message whose sender, group and parent (with its sender) have been fetched, the
+     * repository queries that feed this declare them in their entity graphs.
+     */
     public static ChatMessageResponse fromEntity(ChatMessage message) {
+        ChatMessageResponse dto = fromEntity(message, null, null);
+
+        if (message.getSender() != null) {
+            dto.setSender(toSenderInfo(message.getSender()));
+        }
+        if (message.getGroup() != null) {
+            dto.setGroupName(message.getGroup().getName());
+        }
+
+        return dto;
+    }
+
+    /**
+     * Maps a message whose sender and group are only references, taking their details from the
+     * caller instead. The parent, if any, must have been fetched with its sender.
+     */
+    public static ChatMessageResponse fromEntity(ChatMessage message, OnlineInfoResponse sender, String groupName) {
         ChatMessageResponse dto = new ChatMessageResponse();
         dto.setId(message.getId());
         dto.setContent(message.getContent());
         dto.setContentType(message.getContentType());
         dto.setTimestamp(message.getTimestamp());
         dto.setType(message.getType());
-
-        if (message.getSender() != null) {
-            dto.setSender(new OnlineInfoResponse(
-                    message.getSender().getName(),
-                    message.getSender().getSurname(),
-                    message.getSender().getUsername(),
-                    UserStatus.ONLINE
-            ));
-        }
+        dto.setSender(sender);
+        dto.setGroupName(groupName);
 
         if (message.getGroup() != null) {
             dto.setGroupId(message.getGroup().getId());
-            dto.setGroupName(message.getGroup().getName());
         }
 
         if (message.getParent() != null) {
@@ -56,13 +73,17 @@ public class ChatMessageResponse {
         parentDto.setType(message.getParent().getType());
         parentDto.setContentType(message.getParent().getContentType());
         if (message.getParent().getSender() != null) {
-            parentDto.setSender(new OnlineInfoResponse(
-                    message.getParent().getSender().getName(),
-                    message.getParent().getSender().getSurname(),
-                    message.getParent().getSender().getUsername(),
-                    UserStatus.ONLINE
-            ));
+            parentDto.setSender(toSenderInfo(message.getParent().getSender()));
         }
         return parentDto;
     }
+
+    private static OnlineInfoResponse toSenderInfo(User sender) {
+        return new OnlineInfoResponse(
+                sender.getName(),
+                sender.getSurname(),
+                sender.getUsername(),
+                UserStatus.ONLINE
+        );
+    }
 }
\ No newline at end of file
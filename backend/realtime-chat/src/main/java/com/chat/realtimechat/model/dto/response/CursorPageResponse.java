@@ -0,0 +1,21 @@
+package com.chat.realtimechat.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of items in chronological order. {@code nextCursor} continues in the requested
+ * direction and is {@code null} once there is nothing more, {@code prevCursor} goes the other way.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> items;
+    private String nextCursor;
+    private String prevCursor;
+    private boolean hasMore;
+}
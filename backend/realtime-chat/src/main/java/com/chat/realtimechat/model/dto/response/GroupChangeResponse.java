@@ -0,0 +1,35 @@
+package com.chat.realtimechat.model.dto.response;
+
+import com.chat.realtimechat.model.entity.chat.GroupChangeEvent;
+import com.chat.realtimechat.model.enums.GroupChangeType;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A logged group change. {@code payload} is the event that was pushed over the websocket when the
+ * change happened, passed through as stored.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GroupChangeResponse {
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long id;
+    private Long groupId;
+    private Long userId;
+    private GroupChangeType type;
+    @JsonRawValue
+    private String payload;
+
+    public static GroupChangeResponse fromEntity(GroupChangeEvent event) {
+        return new GroupChangeResponse(
+                event.getId(),
+                event.getGroupId(),
+                event.getUserId(),
+                event.getType(),
+                event.getPayload());
+    }
+}
@@ -0,0 +1,25 @@
+package com.chat.realtimechat.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message matching a search. {@code highlight} is HTML-escaped message text in which the
+ * matched terms are wrapped in {@code <mark>} elements.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MessageSearchResultResponse {
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long id;
+    private Long groupId;
+    private String groupName;
+    private String senderUsername;
+    private LocalDateTime timestamp;
+    private String highlight;
+}
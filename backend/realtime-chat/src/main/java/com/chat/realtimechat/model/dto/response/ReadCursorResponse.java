@@ -0,0 +1,16 @@
+package com.chat.realtimechat.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReadCursorResponse {
+    private Long id;
+    private String username;
+    private LocalDateTime lastReadTime;
+}
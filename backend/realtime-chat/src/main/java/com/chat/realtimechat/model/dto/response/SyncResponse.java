@@ -0,0 +1,27 @@
+package com.chat.realtimechat.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes across all of a user's groups since a sync cursor, oldest first. Entries near the end of
+ * a page can be delivered again by the next sync, clients drop them by id.
+ * {@code resetRequired} means the cursor is missing or too old to be served and the client has to
+ * reload its groups before syncing from {@code nextCursor}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncResponse {
+    private List<ChatMessageResponse> messages;
+    private List<GroupChangeResponse> events;
+    private Map<Long, List<ReadCursorResponse>> readCursors;
+    private Map<Long, Long> unreadCounts;
+    private String nextCursor;
+    private boolean hasMore;
+    private boolean resetRequired;
+}
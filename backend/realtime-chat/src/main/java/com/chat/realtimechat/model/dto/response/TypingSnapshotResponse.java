@@ -0,0 +1,19 @@
+package com.chat.realtimechat.model.dto.response;
+
+import com.chat.realtimechat.model.entity.chat.ChatMessage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TypingSnapshotResponse {
+    private ChatMessage.MessageType type;
+    private Long groupId;
+    private List<String> users;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,15 @@
+package com.chat.realtimechat.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UnreadCountsResponse {
+    private long total;
+    private Map<Long, Long> groups;
+}
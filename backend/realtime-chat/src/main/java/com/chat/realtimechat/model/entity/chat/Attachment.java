@@ -0,0 +1,35 @@
+package com.chat.realtimechat.model.entity.chat;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "attachment")
+public class Attachment {
+
+    @Id
+    private String fileName;
+
+    private String originalName;
+
+    private String mimeType;
+
+    private long sizeBytes;
+
+    private Integer width;
+
+    private Integer height;
+
+    private LocalDateTime uploadedAt;
+}
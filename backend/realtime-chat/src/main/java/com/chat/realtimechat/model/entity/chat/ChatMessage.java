@@ -1,5 +1,6 @@
 package com.chat.realtimechat.model.entity.chat;
 
+import com.chat.realtimechat.model.entity.common.SnowflakeId;
 import com.chat.realtimechat.model.entity.users.User;
 import com.chat.realtimechat.model.enums.MessageContentType;
 import jakarta.persistence.*;
@@ -12,14 +13,18 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "chat_message")
+@Table(name = "chat_message", indexes = {
+        @Index(name = "idx_chat_message_group_id", columnList = "chat_group_id, id"),
+        @Index(name = "idx_chat_message_group_content_type", columnList = "chat_group_id, content_type, id"),
+        @Index(name = "idx_chat_message_parent_id", columnList = "parent_id")
+})
 public class ChatMessage {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "app_user_id")
     private User sender;
 
@@ -28,7 +33,7 @@ public class ChatMessage {
 
     private LocalDateTime timestamp;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name= "chat_group_id")
     private ChatGroup group;
 
@@ -0,0 +1,46 @@
+package com.chat.realtimechat.model.entity.chat;
+
+import com.chat.realtimechat.model.entity.common.SnowflakeId;
+import com.chat.realtimechat.model.enums.GroupChangeType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the change log read by the sync endpoint. Groups and users are referenced by id
+ * only, so entries outlive the rows they describe until they are pruned.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "group_change_event", indexes = {
+        @Index(name = "idx_group_change_event_group_id", columnList = "group_id, id"),
+        @Index(name = "idx_group_change_event_user_id", columnList = "user_id, id")
+})
+public class GroupChangeEvent {
+
+    @Id
+    @SnowflakeId
+    private Long id;
+
+    @Column(name = "group_id", nullable = false)
+    private Long groupId;
+
+    // The member an event is about, it stays visible to them after they leave the group.
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    private GroupChangeType type;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,18 @@
+package com.chat.realtimechat.model.entity.common;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns the id in-process from the node's {@link com.chat.realtimechat.util.SnowflakeIdGenerator}
+ * instead of waiting for the database, which keeps JDBC insert batching enabled.
+ */
+@IdGeneratorType(SnowflakeIdentifierGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface SnowflakeId {
+}
@@ -0,0 +1,7 @@
+package com.chat.realtimechat.model.enums;
+
+public enum GroupChangeType {
+    GROUP_UPDATED,
+    MEMBER_ADDED,
+    MEMBER_REMOVED
+}
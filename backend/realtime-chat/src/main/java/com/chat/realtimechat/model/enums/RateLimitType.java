@@ -0,0 +1,22 @@
+package com.chat.realtimechat.model.enums;
+
+import lombok.Getter;
+
+/**
+ * Limited operations, each configured under {@code chat.rateLimit.<key>.perSecond} and
+ * {@code .burst}.
+ */
+@Getter
+public enum RateLimitType {
+    CHAT_SEND("chatSend"),
+    CHAT_SEND_GROUP("chatSendGroup"),
+    TYPING("typing"),
+    STATUS("status"),
+    UPLOAD("upload");
+
+    private final String key;
+
+    RateLimitType(String key) {
+        this.key = key;
+    }
+}
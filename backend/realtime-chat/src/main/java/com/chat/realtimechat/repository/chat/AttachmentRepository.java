@@ -0,0 +1,7 @@
+package com.chat.realtimechat.repository.chat;
+
+import com.chat.realtimechat.model.entity.chat.Attachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AttachmentRepository extends JpaRepository<Attachment, String> {
+}
@@ -1,9 +1,61 @@
 package com.chat.realtimechat.repository.chat;
 
+import com.chat.realtimechat.model.dto.projection.GroupMemberRow;
+import com.chat.realtimechat.model.dto.projection.InboxGroupRow;
+import com.chat.realtimechat.model.dto.projection.InboxMemberRow;
 import com.chat.realtimechat.model.entity.chat.ChatGroupMember;
 import com.chat.realtimechat.model.entity.users.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface ChatGroupMemberRepository extends JpaRepository<ChatGroupMember, Long> {
     void deleteByUser(User user);
+
+    @Query("SELECT new com.chat.realtimechat.model.dto.projection.GroupMemberRow(g.id, g.name, g.type, u.id, u.username) " +
+            "FROM ChatGroupMember m JOIN m.group g JOIN m.user u " +
+            "WHERE g.id = :groupId AND g.isDeleted = false")
+    List<GroupMemberRow> findMemberRows(@Param("groupId") Long groupId);
+
+    @Query("SELECT COUNT(m) > 0 FROM ChatGroupMember m " +
+            "WHERE m.group.id = :groupId AND m.user.username = :username AND m.group.isDeleted = false")
+    boolean isActiveMember(@Param("groupId") Long groupId, @Param("username") String username);
+
+    @Query("SELECT m.group.id FROM ChatGroupMember m WHERE m.user = :user")
+    List<Long> findGroupIdsByUser(@Param("user") User user);
+
+    @Query("SELECT m.group.id FROM ChatGroupMember m WHERE m.user.id = :userId AND m.group.isDeleted = false")
+    List<Long> findActiveGroupIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT MIN(m.lastReadTime) FROM ChatGroupMember m WHERE m.user.id = :userId AND m.group.id IN :groupIds")
+    LocalDateTime findOldestReadTime(@Param("userId") Long userId, @Param("groupIds") Collection<Long> groupIds);
+
+    @Query(value = "SELECT new com.chat.realtimechat.model.dto.projection.InboxGroupRow(" +
+            "g.id, g.name, g.type, g.imageUrl, g.lastMessageContent, g.lastMessageTime, g.createdAt, m.isMuted) " +
+            "FROM ChatGroupMember m JOIN m.group g " +
+            "WHERE m.user.id = :userId AND g.isDeleted = false " +
+            "ORDER BY COALESCE(g.lastMessageTime, g.createdAt) DESC, g.id DESC",
+            countQuery = "SELECT COUNT(m) FROM ChatGroupMember m WHERE m.user.id = :userId AND m.group.isDeleted = false")
+    Page<InboxGroupRow> findInboxPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.chat.realtimechat.model.dto.projection.InboxMemberRow(" +
+            "m.group.id, u.id, u.username, u.name, u.surname, m.lastReadTime) " +
+            "FROM ChatGroupMember m JOIN m.user u " +
+            "WHERE m.group.id IN :groupIds")
+    List<InboxMemberRow> findInboxMembers(@Param("groupIds") Collection<Long> groupIds);
+
+    @Query("SELECT new com.chat.realtimechat.model.dto.projection.InboxMemberRow(" +
+            "m.group.id, u.id, u.username, u.name, u.surname, m.lastReadTime) " +
+            "FROM ChatGroupMember m JOIN m.user u " +
+            "WHERE m.lastReadTime > :since AND m.lastReadTime <= :until AND m.group.id IN " +
+            "(SELECT mine.group.id FROM ChatGroupMember mine WHERE mine.user.id = :userId AND mine.group.isDeleted = false)")
+    List<InboxMemberRow> findReadCursorsChanged(@Param("userId") Long userId,
+                                                @Param("since") LocalDateTime since,
+                                                @Param("until") LocalDateTime until);
 }
@@ -1,13 +1,17 @@
 package com.chat.realtimechat.repository.chat;
 
+import com.chat.realtimechat.model.dto.projection.GroupAdminRow;
 import com.chat.realtimechat.model.entity.chat.ChatGroup;
 import com.chat.realtimechat.model.entity.users.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,4 +34,18 @@ public interface ChatGroupRepository extends JpaRepository<ChatGroup, Long> {
         ChatGroup getById(Long id);
 
         List<ChatGroup> findByAdminsContains(User user);
+
+        @Query("SELECT g.id FROM ChatGroup g " +
+                "WHERE COALESCE(g.lastMessageTime, g.createdAt) < :inactiveSince " +
+                "AND EXISTS (SELECT m.id FROM ChatMessage m WHERE m.group = g AND m.id < :beforeId " +
+                "AND NOT EXISTS (SELECT c.id FROM ChatMessage c WHERE c.parent = m))")
+        List<Long> findArchivableGroupIds(@Param("inactiveSince") LocalDateTime inactiveSince,
+                                          @Param("beforeId") Long beforeId,
+                                          Limit limit);
+
+        @Query("SELECT new com.chat.realtimechat.model.dto.projection.GroupAdminRow(" +
+                        "g.id, a.id, a.email, a.username, a.name, a.surname) " +
+                        "FROM ChatGroup g JOIN g.admins a " +
+                        "WHERE g.id IN :groupIds")
+        List<GroupAdminRow> findAdminRows(@Param("groupIds") Collection<Long> groupIds);
 }
@@ -1,29 +1,86 @@
 package com.chat.realtimechat.repository.chat;
 
+import com.chat.realtimechat.model.dto.projection.MediaMessageRow;
+import com.chat.realtimechat.model.dto.projection.UnreadCountRow;
 import com.chat.realtimechat.model.entity.chat.ChatMessage;
 import com.chat.realtimechat.model.entity.users.User;
 import com.chat.realtimechat.model.enums.MessageContentType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
+    @EntityGraph(attributePaths = {"sender", "group", "parent", "parent.sender"})
     Slice<ChatMessage> findByGroupId(Long groupId, Pageable pageable);
 
-    Optional<ChatMessage> findFirstByGroupIdOrderByTimestampDesc(Long groupId);
-    @Query("SELECT COUNT(m) FROM ChatMessage m " +
-            "WHERE m.group.id = :groupId " +
-            "AND m.timestamp > :lastReadTime " +
-            "AND m.sender.id <> :currentUserId")
-    long countUnreadMessages(@Param("groupId") Long groupId,
-                             @Param("currentUserId") Long currentUserId,
-                             @Param("lastReadTime") LocalDateTime lastReadTime);
-    List<ChatMessage> findByGroupIdAndContentType(Long groupId, MessageContentType contentType);
+    Optional<ChatMessage> findFirstByGroupIdOrderByIdDesc(Long groupId);
+
+    @EntityGraph(attributePaths = {"sender"})
+    Optional<ChatMessage> findWithSenderById(Long id);
+
+    @EntityGraph(attributePaths = {"sender", "group", "parent", "parent.sender"})
+    List<ChatMessage> findByGroupIdOrderByIdDesc(Long groupId, Limit limit);
+
+    @EntityGraph(attributePaths = {"sender", "group", "parent", "parent.sender"})
+    List<ChatMessage> findByGroupIdAndIdLessThanOrderByIdDesc(Long groupId, Long id, Limit limit);
+
+    @EntityGraph(attributePaths = {"sender", "group", "parent", "parent.sender"})
+    List<ChatMessage> findByGroupIdAndIdGreaterThanOrderByIdAsc(Long groupId, Long id, Limit limit);
+
+    @EntityGraph(attributePaths = {"sender", "group", "parent", "parent.sender"})
+    List<ChatMessage> findByGroupIdInAndIdGreaterThanOrderByIdAsc(Collection<Long> groupIds, Long id, Limit limit);
+
+    // Messages that are the parent of a reply stay in the table, the foreign key needs them.
+    @EntityGraph(attributePaths = {"sender", "group", "parent", "parent.sender"})
+    @Query("SELECT m FROM ChatMessage m " +
+            "WHERE m.group.id = :groupId AND m.id > :afterId AND m.id < :beforeId " +
+            "AND NOT EXISTS (SELECT c.id FROM ChatMessage c WHERE c.parent = m) " +
+            "ORDER BY m.id ASC")
+    List<ChatMessage> findArchivable(@Param("groupId") Long groupId,
+                                     @Param("afterId") Long afterId,
+                                     @Param("beforeId") Long beforeId,
+                                     Limit limit);
+
+    @Query("SELECT new com.chat.realtimechat.model.dto.projection.UnreadCountRow(m.group.id, COUNT(m), MAX(m.id)) " +
+            "FROM ChatMessage m, ChatGroupMember gm " +
+            "WHERE gm.user.id = :userId AND gm.group.id IN :groupIds " +
+            "AND m.group.id = gm.group.id " +
+            "AND m.timestamp > gm.lastReadTime " +
+            "AND m.sender.id <> :userId " +
+            "AND (m.id >= :sinceId OR m.id < :legacyIdCeiling) " +
+            "GROUP BY m.group.id")
+    List<UnreadCountRow> countUnreadMessagesByGroup(@Param("userId") Long userId,
+                                                    @Param("groupIds") Collection<Long> groupIds,
+                                                    @Param("sinceId") Long sinceId,
+                                                    @Param("legacyIdCeiling") Long legacyIdCeiling);
+
+    @Query("SELECT new com.chat.realtimechat.model.dto.projection.MediaMessageRow(m.id, m.content, m.timestamp) " +
+            "FROM ChatMessage m " +
+            "WHERE m.group.id = :groupId AND m.contentType = :contentType " +
+            "ORDER BY m.id DESC")
+    List<MediaMessageRow> findLatestMedia(@Param("groupId") Long groupId,
+                                          @Param("contentType") MessageContentType contentType,
+                                          Limit limit);
+
+    @Query("SELECT new com.chat.realtimechat.model.dto.projection.MediaMessageRow(m.id, m.content, m.timestamp) " +
+            "FROM ChatMessage m " +
+            "WHERE m.group.id = :groupId AND m.contentType = :contentType AND m.id < :beforeId " +
+            "ORDER BY m.id DESC")
+    List<MediaMessageRow> findMediaBefore(@Param("groupId") Long groupId,
+                                          @Param("contentType") MessageContentType contentType,
+                                          @Param("beforeId") Long beforeId,
+                                          Limit limit);
+
     void deleteAllBySender(User sender);
+
+    @Query("SELECT DISTINCT m.group.id FROM ChatMessage m WHERE m.sender = :sender")
+    List<Long> findGroupIdsBySender(@Param("sender") User sender);
 }
\ No newline at end of file
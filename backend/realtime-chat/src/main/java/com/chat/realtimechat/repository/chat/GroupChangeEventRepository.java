@@ -0,0 +1,25 @@
+package com.chat.realtimechat.repository.chat;
+
+import com.chat.realtimechat.model.entity.chat.GroupChangeEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface GroupChangeEventRepository extends JpaRepository<GroupChangeEvent, Long> {
+
+    @Query("SELECT e FROM GroupChangeEvent e " +
+            "WHERE e.id > :afterId AND (e.userId = :userId OR e.groupId IN " +
+            "(SELECT gm.group.id FROM ChatGroupMember gm WHERE gm.user.id = :userId)) " +
+            "ORDER BY e.id ASC")
+    List<GroupChangeEvent> findVisibleAfter(@Param("userId") Long userId,
+                                            @Param("afterId") Long afterId,
+                                            Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM GroupChangeEvent e WHERE e.id < :beforeId")
+    int deleteOlderThan(@Param("beforeId") Long beforeId);
+}
@@ -0,0 +1,377 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * An immutable file of archived messages of one group, in ascending id order.
+ *
+ * <pre>
+ * magic, version
+ * block*          deflated runs of (length, JSON) records
+ * index           per block: first id, last id, offset, compressed and raw length
+ * senders         usernames of everyone with a message in the file
+ * footer          index offset, block count, magic
+ * </pre>
+ *
+ * The file is memory-mapped once and only the blocks a read needs are inflated. The index acts
+ * as a sparse offset index, one entry per block rather than per message.
+ */
+final class ArchiveSegment {
+
+    static final String EXTENSION = ".seg";
+
+    private static final int MAGIC = 0x434D5347;
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = Integer.BYTES + 1;
+    private static final int FOOTER_LENGTH = Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final int INDEX_ENTRY_LENGTH = 3 * Long.BYTES + 2 * Integer.BYTES;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long[] firstIds;
+    private final long[] lastIds;
+    private final long[] offsets;
+    private final int[] compressedLengths;
+    private final int[] rawLengths;
+    private final Set<String> senders;
+
+    private ArchiveSegment(Path path, MappedByteBuffer buffer, long[] firstIds, long[] lastIds, long[] offsets,
+                           int[] compressedLengths, int[] rawLengths, Set<String> senders) {
+        this.path = path;
+        this.buffer = buffer;
+        this.firstIds = firstIds;
+        this.lastIds = lastIds;
+        this.offsets = offsets;
+        this.compressedLengths = compressedLengths;
+        this.rawLengths = rawLengths;
+        this.senders = senders;
+    }
+
+    /**
+     * Writes {@code messages}, which must be in ascending id order, to {@code target}. The file is
+     * written under a temporary name and moved into place once it is complete and synced.
+     */
+    static ArchiveSegment write(Path target, List<ChatMessageResponse> messages, int blockMessages,
+                                JsonMapper jsonMapper) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Set<String> senders = new HashSet<>();
+
+        int blockCount = (messages.size() + blockMessages - 1) / blockMessages;
+        long[] firstIds = new long[blockCount];
+        long[] lastIds = new long[blockCount];
+        long[] offsets = new long[blockCount];
+        int[] compressedLengths = new int[blockCount];
+        int[] rawLengths = new int[blockCount];
+
+        try (OutputStream file = Files.newOutputStream(temp);
+             CountingOutputStream counting = new CountingOutputStream(new BufferedOutputStream(file));
+             DataOutputStream out = new DataOutputStream(counting)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                for (int block = 0; block < blockCount; block++) {
+                    List<ChatMessageResponse> records = messages.subList(
+                            block * blockMessages, Math.min(messages.size(), (block + 1) * blockMessages));
+
+                    ByteArrayOutputStream raw = new ByteArrayOutputStream();
+                    DataOutputStream rawOut = new DataOutputStream(raw);
+                    for (ChatMessageResponse message : records) {
+                        byte[] json = jsonMapper.writeValueAsBytes(message);
+                        rawOut.writeInt(json.length);
+                        rawOut.write(json);
+                        if (message.getSender() != null) {
+                            senders.add(message.getSender().getUsername());
+                        }
+                    }
+
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    deflater.reset();
+                    try (DeflaterOutputStream deflating = new DeflaterOutputStream(compressed, deflater)) {
+                        raw.writeTo(deflating);
+                    }
+
+                    firstIds[block] = records.getFirst().getId();
+                    lastIds[block] = records.getLast().getId();
+                    offsets[block] = counting.count();
+                    compressedLengths[block] = compressed.size();
+                    rawLengths[block] = raw.size();
+                    compressed.writeTo(out);
+                }
+            } finally {
+                deflater.end();
+            }
+
+            out.flush();
+            long indexOffset = counting.count();
+            for (int block = 0; block < blockCount; block++) {
+                out.writeLong(firstIds[block]);
+                out.writeLong(lastIds[block]);
+                out.writeLong(offsets[block]);
+                out.writeInt(compressedLengths[block]);
+                out.writeInt(rawLengths[block]);
+            }
+            out.writeInt(senders.size());
+            for (String sender : senders) {
+                byte[] utf8 = sender.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(blockCount);
+            out.writeInt(MAGIC);
+        }
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        return open(target);
+    }
+
+    static ArchiveSegment open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int size = buffer.capacity();
+        if (size < HEADER_LENGTH + FOOTER_LENGTH || buffer.getInt(0) != MAGIC || buffer.get(Integer.BYTES) != VERSION
+                || buffer.getInt(size - Integer.BYTES) != MAGIC) {
+            throw new IOException("Not an archive segment: " + path);
+        }
+
+        long indexOffset = buffer.getLong(size - FOOTER_LENGTH);
+        int blockCount = buffer.getInt(size - FOOTER_LENGTH + Long.BYTES);
+        int indexEnd = size - FOOTER_LENGTH;
+        if (indexOffset < HEADER_LENGTH || indexOffset > indexEnd || blockCount < 0
+                || (long) blockCount * INDEX_ENTRY_LENGTH > indexEnd - indexOffset) {
+            throw new IOException("Corrupt index in " + path);
+        }
+
+        long[] firstIds = new long[blockCount];
+        long[] lastIds = new long[blockCount];
+        long[] offsets = new long[blockCount];
+        int[] compressedLengths = new int[blockCount];
+        int[] rawLengths = new int[blockCount];
+        Set<String> senders = new HashSet<>();
+        try {
+            ByteBuffer index = buffer.duplicate().position((int) indexOffset).limit(indexEnd);
+            for (int block = 0; block < blockCount; block++) {
+                firstIds[block] = index.getLong();
+                lastIds[block] = index.getLong();
+                offsets[block] = index.getLong();
+                compressedLengths[block] = index.getInt();
+                rawLengths[block] = index.getInt();
+                if (offsets[block] < HEADER_LENGTH || compressedLengths[block] < 0 || rawLengths[block] < 0
+                        || offsets[block] + compressedLengths[block] > indexOffset) {
+                    throw new IOException("Corrupt index entry " + block + " in " + path);
+                }
+            }
+
+            int senderCount = index.getInt();
+            for (int i = 0; i < senderCount; i++) {
+                byte[] utf8 = new byte[index.getInt()];
+                index.get(utf8);
+                senders.add(new String(utf8, StandardCharsets.UTF_8));
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt index in " + path, e);
+        }
+
+        return new ArchiveSegment(path, buffer, firstIds, lastIds, offsets, compressedLengths, rawLengths,
+                Collections.unmodifiableSet(senders));
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long firstId() {
+        return firstIds.length == 0 ? Long.MAX_VALUE : firstIds[0];
+    }
+
+    long lastId() {
+        return lastIds.length == 0 ? Long.MIN_VALUE : lastIds[lastIds.length - 1];
+    }
+
+    Set<String> senders() {
+        return senders;
+    }
+
+    /**
+     * Up to {@code limit} messages with an id below {@code beforeId}, newest first.
+     */
+    List<ChatMessageResponse> readBefore(long beforeId, int limit, JsonMapper jsonMapper) throws IOException {
+        return readBefore(beforeId, limit, message -> true, jsonMapper);
+    }
+
+    /**
+     * Up to {@code limit} messages matching {@code filter} with an id below {@code beforeId}, newest first.
+     */
+    List<ChatMessageResponse> readBefore(long beforeId, int limit, Predicate<ChatMessageResponse> filter,
+                                         JsonMapper jsonMapper) throws IOException {
+        List<ChatMessageResponse> result = new ArrayList<>(limit);
+        for (int block = lastBlockBefore(beforeId); block >= 0 && result.size() < limit; block--) {
+            List<ChatMessageResponse> records = readBlock(block, jsonMapper);
+            for (int i = records.size() - 1; i >= 0 && result.size() < limit; i--) {
+                if (records.get(i).getId() < beforeId && filter.test(records.get(i))) {
+                    result.add(records.get(i));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Up to {@code limit} messages with an id above {@code afterId}, oldest first.
+     */
+    List<ChatMessageResponse> readAfter(long afterId, int limit, JsonMapper jsonMapper) throws IOException {
+        List<ChatMessageResponse> result = new ArrayList<>(limit);
+        for (int block = firstBlockAfter(afterId); block < firstIds.length && result.size() < limit; block++) {
+            for (ChatMessageResponse record : readBlock(block, jsonMapper)) {
+                if (record.getId() > afterId && result.size() < limit) {
+                    result.add(record);
+                }
+            }
+        }
+        return result;
+    }
+
+    List<ChatMessageResponse> readAll(JsonMapper jsonMapper) throws IOException {
+        List<ChatMessageResponse> result = new ArrayList<>();
+        for (int block = 0; block < firstIds.length; block++) {
+            result.addAll(readBlock(block, jsonMapper));
+        }
+        return result;
+    }
+
+    // Index of the last block whose first id is below beforeId, -1 if there is none.
+    private int lastBlockBefore(long beforeId) {
+        int low = 0;
+        int high = firstIds.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (firstIds[mid] < beforeId) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    // Index of the first block whose last id is above afterId, the block count if there is none.
+    private int firstBlockAfter(long afterId) {
+        int low = 0;
+        int high = lastIds.length - 1;
+        int found = lastIds.length;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (lastIds[mid] > afterId) {
+                found = mid;
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return found;
+    }
+
+    private List<ChatMessageResponse> readBlock(int block, JsonMapper jsonMapper) throws IOException {
+        ByteBuffer compressed = buffer.slice((int) offsets[block], compressedLengths[block]);
+        // One spare byte, so the stream's checksum is always read and a longer block shows up.
+        byte[] raw = new byte[rawLengths[block] + 1];
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(raw, read, raw.length - read);
+                read += inflated;
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary() || read == raw.length)) {
+                    break;
+                }
+            }
+            if (!inflater.finished() || read != rawLengths[block]) {
+                throw new IOException("Truncated block " + block + " in " + path);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block " + block + " in " + path, e);
+        } finally {
+            inflater.end();
+        }
+
+        List<ChatMessageResponse> records = new ArrayList<>();
+        ByteBuffer in = ByteBuffer.wrap(raw, 0, rawLengths[block]);
+        try {
+            while (in.hasRemaining()) {
+                int length = in.getInt();
+                if (length < 0 || length > in.remaining()) {
+                    throw new IOException("Corrupt record in block " + block + " of " + path);
+                }
+                records.add(jsonMapper.readValue(raw, in.position(), length, ChatMessageResponse.class));
+                in.position(in.position() + length);
+            }
+        } catch (BufferUnderflowException | JacksonException e) {
+            throw new IOException("Corrupt record in block " + block + " of " + path, e);
+        }
+        return records;
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.response.AttachmentResponse;
+import com.chat.realtimechat.model.dto.response.CursorPageResponse;
+import com.chat.realtimechat.model.enums.MessageContentType;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+public interface AttachmentService {
+    String store(MultipartFile file) throws IOException;
+
+    CursorPageResponse<AttachmentResponse> getGroupMedia(Long groupId, String username,
+                                                         MessageContentType contentType, String before, int size);
+}
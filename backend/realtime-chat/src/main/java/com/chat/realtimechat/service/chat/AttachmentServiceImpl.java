@@ -0,0 +1,171 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.exception.chat.GroupNotFoundException;
+import com.chat.realtimechat.model.dto.projection.MediaMessageRow;
+import com.chat.realtimechat.model.dto.response.AttachmentResponse;
+import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.dto.response.CursorPageResponse;
+import com.chat.realtimechat.model.entity.chat.Attachment;
+import com.chat.realtimechat.model.enums.MessageContentType;
+import com.chat.realtimechat.repository.chat.AttachmentRepository;
+import com.chat.realtimechat.repository.chat.ChatMessageRepository;
+import com.chat.realtimechat.service.users.UserProfile;
+import com.chat.realtimechat.service.users.UserProfileCache;
+import com.chat.realtimechat.util.HistoryCursor;
+import com.chat.realtimechat.util.UploadUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttachmentServiceImpl implements AttachmentService {
+
+    static final int MAX_MEDIA_PAGE_SIZE = 100;
+    private static final String FILE_URL_PREFIX = "/api/files/";
+
+    private final UploadUtils uploadUtils;
+    private final AttachmentRepository attachmentRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final GroupMembershipCache groupMembershipCache;
+    private final UserProfileCache userProfileCache;
+    private final MessageArchive messageArchive;
+
+    @Override
+    public String store(MultipartFile file) throws IOException {
+        String savedFileName = uploadUtils.saveFile(file);
+
+        String mimeType = resolveMimeType(file);
+        Attachment attachment = new Attachment();
+        attachment.setFileName(savedFileName);
+        attachment.setOriginalName(file.getOriginalFilename());
+        attachment.setMimeType(mimeType);
+        attachment.setSizeBytes(file.getSize());
+        attachment.setUploadedAt(LocalDateTime.now());
+        if (mimeType.startsWith("image/")) {
+            readDimensions(file, attachment);
+        }
+        attachmentRepository.save(attachment);
+
+        return FILE_URL_PREFIX + savedFileName;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<AttachmentResponse> getGroupMedia(Long groupId, String username,
+                                                                MessageContentType contentType, String before, int size) {
+        UserProfile user = userProfileCache.getByUsername(username);
+        if (!groupMembershipCache.getMembers(groupId).containsUser(user.id())) {
+            throw new GroupNotFoundException("Group not found!");
+        }
+
+        int pageSize = Math.clamp(size, 1, MAX_MEDIA_PAGE_SIZE);
+        // One extra row tells whether another page exists without a COUNT.
+        Limit limit = Limit.of(pageSize + 1);
+        Long beforeId = before != null ? HistoryCursor.decode(before) : null;
+        List<MediaMessageRow> rows = beforeId != null
+                ? chatMessageRepository.findMediaBefore(groupId, contentType, beforeId, limit)
+                : chatMessageRepository.findLatestMedia(groupId, contentType, limit);
+        rows = withArchivedMedia(groupId, contentType, beforeId, rows, pageSize + 1);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<MediaMessageRow> page = rows.subList(0, Math.min(pageSize, rows.size()));
+
+        Map<String, Attachment> attachments = attachmentRepository
+                .findAllById(page.stream().map(row -> fileNameOf(row.content())).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(Attachment::getFileName, Function.identity()));
+
+        List<AttachmentResponse> items = new ArrayList<>(page.size());
+        for (MediaMessageRow row : page) {
+            items.add(AttachmentResponse.of(row, attachments.get(fileNameOf(row.content()))));
+        }
+        Collections.reverse(items);
+
+        String nextCursor = hasMore ? HistoryCursor.encode(page.getLast().messageId()) : null;
+        return new CursorPageResponse<>(items, nextCursor, null, hasMore);
+    }
+
+    /**
+     * Fills the page from the archive once it reaches past the oldest media still in the table.
+     * Rows come newest first.
+     */
+    private List<MediaMessageRow> withArchivedMedia(Long groupId, MessageContentType contentType, Long beforeId,
+                                                    List<MediaMessageRow> rows, int limit) {
+        if (rows.size() == limit && rows.getLast().messageId() > messageArchive.newestArchivedId(groupId)) {
+            return rows;
+        }
+
+        List<ChatMessageResponse> archived = messageArchive.readBefore(
+                groupId, beforeId != null ? beforeId : Long.MAX_VALUE, limit, contentType);
+        if (archived.isEmpty()) {
+            return rows;
+        }
+
+        // A message can be in both after an interrupted archiving run, the table's copy wins.
+        Map<Long, MediaMessageRow> byId = new HashMap<>();
+        archived.forEach(m -> byId.put(m.getId(), new MediaMessageRow(m.getId(), m.getContent(), m.getTimestamp())));
+        rows.forEach(row -> byId.put(row.messageId(), row));
+
+        List<MediaMessageRow> merged = new ArrayList<>(byId.values());
+        merged.sort(Comparator.comparing(MediaMessageRow::messageId).reversed());
+        return merged.subList(0, Math.min(limit, merged.size()));
+    }
+
+    private String resolveMimeType(MultipartFile file) {
+        String mimeType = file.getContentType();
+        if (mimeType == null || mimeType.isBlank()) {
+            mimeType = URLConnection.guessContentTypeFromName(file.getOriginalFilename());
+        }
+        return mimeType != null ? mimeType : "application/octet-stream";
+    }
+
+    // Reads only the image header, the pixels are never decoded.
+    private void readDimensions(MultipartFile file, Attachment attachment) {
+        try (InputStream input = file.getInputStream();
+             ImageInputStream imageInput = ImageIO.createImageInputStream(input)) {
+            if (imageInput == null) {
+                return;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                attachment.setWidth(reader.getWidth(0));
+                attachment.setHeight(reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            log.warn("Could not read dimensions of {}", attachment.getFileName(), e);
+        }
+    }
+
+    private static String fileNameOf(String url) {
+        return url == null ? "" : url.substring(url.lastIndexOf('/') + 1);
+    }
+}
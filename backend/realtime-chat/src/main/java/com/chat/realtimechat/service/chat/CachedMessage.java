@@ -0,0 +1,14 @@
+package com.chat.realtimechat.service.chat;
+
+import tools.jackson.databind.util.RawValue;
+
+/**
+ * A message as held in the hot history ring, {@code json} is its serialized
+ * {@code ChatMessageResponse} and goes out to clients without being parsed again.
+ */
+public record CachedMessage(long id, String json) {
+
+    public RawValue raw() {
+        return new RawValue(json);
+    }
+}
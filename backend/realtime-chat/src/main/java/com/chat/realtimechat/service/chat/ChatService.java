@@ -2,7 +2,7 @@ package com.chat.realtimechat.service.chat;
 
 import com.chat.realtimechat.model.dto.request.ChatMessageRequest;
 import com.chat.realtimechat.model.dto.request.StatusUpdateRequest;
-import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.dto.response.CursorPageResponse;
 import org.springframework.http.ResponseEntity;
 
 import java.security.Principal;
@@ -11,6 +11,7 @@ import java.util.List;
 public interface ChatService {
     void sendMessage(Long groupId, ChatMessageRequest request, Principal principal);
     void handleTyping(Long groupId, Principal principal);
-    ResponseEntity<List<ChatMessageResponse>> loadGroupHistory(Long groupId, Principal principal, int page, int size);
+    ResponseEntity<List<?>> loadGroupHistory(Long groupId, Principal principal, int page, int size);
+    ResponseEntity<CursorPageResponse<?>> loadGroupHistoryPage(Long groupId, Principal principal, String before, String after, int size);
     void handleStatusChange(StatusUpdateRequest request, Principal principal);
 }
@@ -1,20 +1,31 @@
 package com.chat.realtimechat.service.chat;
 
+import com.chat.realtimechat.exception.chat.GroupAccessDeniedException;
 import com.chat.realtimechat.exception.chat.GroupNotFoundException;
+import com.chat.realtimechat.exception.chat.HistoryPageTooDeepException;
+import com.chat.realtimechat.exception.chat.InvalidCursorException;
+import com.chat.realtimechat.exception.chat.RateLimitExceededException;
 import com.chat.realtimechat.model.dto.request.ChatMessageRequest;
 import com.chat.realtimechat.model.dto.request.StatusUpdateRequest;
 import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.dto.response.CursorPageResponse;
 import com.chat.realtimechat.model.dto.response.OnlineInfoResponse;
-import com.chat.realtimechat.model.entity.chat.ChatGroup;
 import com.chat.realtimechat.model.entity.chat.ChatMessage;
 import com.chat.realtimechat.model.entity.users.User;
 import com.chat.realtimechat.model.enums.MessageContentType;
+import com.chat.realtimechat.model.enums.RateLimitType;
 import com.chat.realtimechat.model.enums.UserStatus;
 import com.chat.realtimechat.repository.chat.ChatGroupRepository;
 import com.chat.realtimechat.repository.chat.ChatMessageRepository;
 import com.chat.realtimechat.repository.users.FriendshipRepository;
 import com.chat.realtimechat.repository.users.UserRepository;
+import com.chat.realtimechat.service.users.UserProfile;
+import com.chat.realtimechat.service.users.UserProfileCache;
+import com.chat.realtimechat.util.HistoryCursor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
@@ -23,20 +34,30 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.util.RawValue;
 
 import java.security.Principal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ChatServiceImpl implements ChatService{
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final int MAX_HISTORY_OFFSET = 1000;
+
     private final ChatMessageRepository chatMessageRepository;
     private final ChatGroupRepository chatGroupRepository;
     private final UserRepository userRepository;
@@ -44,76 +65,167 @@ public class ChatServiceImpl implements ChatService{
 
     private final SimpMessagingTemplate messagingTemplate;
     private final UserPresenceService presenceService;
+    private final MessageBatchWriter messageBatchWriter;
+    private final GroupFanoutService groupFanoutService;
+    private final GroupMembershipCache groupMembershipCache;
+    private final UserProfileCache userProfileCache;
+    private final TypingIndicatorService typingIndicatorService;
+    private final UnreadCounterService unreadCounterService;
+    private final HotHistoryCache hotHistoryCache;
+    private final MessageArchive messageArchive;
+    private final MessageDeliveryExecutor messageDeliveryExecutor;
+    private final RateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public void sendMessage(Long groupId, ChatMessageRequest request, Principal principal) {
-        User sender = getCurrentUser(principal);
+        UserProfile sender = getCurrentUser(principal);
 
-        ChatGroup group = chatGroupRepository.findByIdWithMembers(groupId)
-                .orElseThrow(() -> new GroupNotFoundException("Group not found"));
+        GroupMembers members = groupMembershipCache.getMembers(groupId);
+        if (!members.containsUser(sender.id())) {
+            throw new GroupAccessDeniedException("You are not a member of this group");
+        }
+        try {
+            rateLimiter.acquire(RateLimitType.CHAT_SEND_GROUP, groupId.toString());
+        } catch (RateLimitExceededException e) {
+            // The sender's own token is given back, the message never went out.
+            rateLimiter.release(RateLimitType.CHAT_SEND, sender.username());
+            groupRateLimited(groupId, sender.username(), request, e.getRetryAfterMs());
+            return;
+        }
 
         ChatMessage chatMessage = new ChatMessage();
         chatMessage.setContent(request.getContent());
-        chatMessage.setSender(sender);
+        chatMessage.setSender(userRepository.getReferenceById(sender.id()));
         chatMessage.setTimestamp(LocalDateTime.now());
         chatMessage.setType(request.getType());
-        chatMessage.setGroup(group);
+        chatMessage.setGroup(chatGroupRepository.getReferenceById(groupId));
         chatMessage.setContentType(request.getContentType() != null ? request.getContentType() : MessageContentType.TEXT);
 
         if (request.getParentId() != null) {
-            chatMessageRepository.findById(request.getParentId())
+            chatMessageRepository.findWithSenderById(request.getParentId())
                     .ifPresent(chatMessage::setParent);
         }
 
-        ChatMessage savedMsg = chatMessageRepository.save(chatMessage);
+        // The writer completes futures on its own thread, delivery moves to the group's lane so
+        // fan-out and Redis calls neither slow down inserts nor reorder the group's messages.
+        messageBatchWriter.submit(chatMessage).whenComplete((savedMsg, ex) -> {
+            if (ex != null) {
+                messageLost(groupId, sender.username(), request, ex);
+                return;
+            }
+            try {
+                messageDeliveryExecutor.forGroup(groupId).execute(() -> deliver(savedMsg, members, sender));
+            } catch (RejectedExecutionException e) {
+                log.error("Delivery queue is full, message {} of group {} reaches clients only through sync",
+                        savedMsg.getId(), groupId);
+                hotHistoryCache.evict(List.of(groupId));
+            }
+        });
+    }
 
-        group.setLastMessageContent(savedMsg.getContent());
-        group.setLastMessageTime(savedMsg.getTimestamp());
-        chatGroupRepository.save(group);
+    private void deliver(ChatMessage savedMsg, GroupMembers members, UserProfile sender) {
+        Long groupId = members.groupId();
+        ChatMessageResponse response;
+        try {
+            response = ChatMessageResponse.fromEntity(savedMsg,
+                    new OnlineInfoResponse(sender.name(), sender.surname(), sender.username(), UserStatus.ONLINE),
+                    members.name());
+        } catch (RuntimeException e) {
+            log.error("Failed to deliver message {} to group {}", savedMsg.getId(), groupId, e);
+            hotHistoryCache.evict(List.of(groupId));
+            return;
+        }
+
+        // The ring must hold every persisted message whether or not the fan-out works, it drops
+        // itself when the append fails.
+        hotHistoryCache.append(groupId, response);
+        try {
+            groupFanoutService.publishToGroup(groupId, members.usernameList(), response);
+        } catch (RuntimeException e) {
+            log.error("Failed to deliver message {} to group {}", savedMsg.getId(), groupId, e);
+        }
+        unreadCounterService.messageSent(groupId, savedMsg.getId(), sender.id(), members.memberIds());
+    }
 
-        group.getMembers().stream()
-                .filter(m -> m.getUser().getId().equals(sender.getId()))
-                .findFirst()
-                .ifPresent(m -> m.setLastReadTime(LocalDateTime.now()));
+    // The message was never persisted, the sender is told so the client can offer a retry.
+    private void messageLost(Long groupId, String username, ChatMessageRequest request, Throwable ex) {
+        if (ex instanceof GroupAccessDeniedException) {
+            // The sender was removed after the cached membership was loaded, the insert refused it.
+            log.info("Dropped message of {} to group {} they are no longer a member of", username, groupId);
+            groupMembershipCache.invalidate(groupId);
+        } else {
+            log.error("Failed to persist message to group {}", groupId, ex);
+            meterRegistry.counter("chat.messages.failed").increment();
+        }
 
-        ChatMessageResponse response = ChatMessageResponse.fromEntity(savedMsg);
+        Map<String, Object> error = new HashMap<>();
+        error.put("type", "MESSAGE_FAILED");
+        error.put("groupId", groupId);
+        error.put("content", Objects.requireNonNullElse(request.getContent(), ""));
+        try {
+            messagingTemplate.convertAndSendToUser(username, "/queue/errors", error);
+        } catch (RuntimeException e) {
+            log.warn("Could not notify {} about a lost message", username, e);
+        }
+    }
 
-        group.getMembers().forEach(member -> {
-            messagingTemplate.convertAndSendToUser(
-                    member.getUser().getUsername(),
-                    "/queue/messages",
-                    response
-            );
-        });
+    // The group is over its limit, the sender keeps the session and is told when to retry.
+    private void groupRateLimited(Long groupId, String username, ChatMessageRequest request, long retryAfterMs) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("type", "RATE_LIMITED");
+        error.put("groupId", groupId);
+        error.put("content", Objects.requireNonNullElse(request.getContent(), ""));
+        error.put("retryAfterMs", retryAfterMs);
+        try {
+            messagingTemplate.convertAndSendToUser(username, "/queue/errors", error);
+        } catch (RuntimeException e) {
+            log.warn("Could not notify {} about a rate limited message", username, e);
+        }
     }
 
     @Override
     public void handleTyping(Long groupId, Principal principal) {
-        User user = getCurrentUser(principal);
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
+        }
 
-        ChatMessageResponse notification = new ChatMessageResponse();
-        notification.setSender(senderInfo(user));
-        notification.setType(ChatMessage.MessageType.TYPING);
-        notification.setTimestamp(LocalDateTime.now());
-        notification.setGroupId(groupId);
+        if (!groupMembershipCache.getMembers(groupId).containsUsername(principal.getName())) {
+            throw new GroupAccessDeniedException("You are not a member of this group");
+        }
 
-        messagingTemplate.convertAndSend(
-                "/topic/group." + groupId,
-                notification
-        );
+        typingIndicatorService.recordTyping(groupId, principal.getName());
     }
 
     @Override
-    public ResponseEntity<List<ChatMessageResponse>> loadGroupHistory(Long groupId, Principal principal, int page, int size) {
-        User user = getCurrentUser(principal);
-        ChatGroup group = chatGroupRepository.getById(groupId);
+    public ResponseEntity<List<?>> loadGroupHistory(Long groupId, Principal principal, int page, int size) {
+        UserProfile user = getCurrentUser(principal);
 
-        if (!group.getUsers().contains(user)) {
+        if (!groupMembershipCache.getMembers(groupId).containsUser(user.id())) {
             throw new GroupNotFoundException("Group not found!");
         }
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "timestamp"));
+        // Every offset page reads all rows above it, deeper history goes through the cursor endpoint.
+        int pageSize = Math.clamp(size, 1, MAX_HISTORY_PAGE_SIZE);
+        if (page < 0 || (long) (page + 1) * pageSize > MAX_HISTORY_OFFSET) {
+            throw new HistoryPageTooDeepException(
+                    "Offset paging covers the latest " + MAX_HISTORY_OFFSET + " messages, use the cursor endpoint");
+        }
+
+        if (page == 0 && pageSize <= hotHistoryCache.capacity()) {
+            return ResponseEntity.status(HttpStatus.OK).body(latestMessages(groupId, pageSize));
+        }
+
+        if (messageArchive.newestArchivedId(groupId) != Long.MIN_VALUE) {
+            List<ChatMessageResponse> newest = newestFirst(groupId, null, (page + 1) * pageSize);
+            List<ChatMessageResponse> pageItems = new ArrayList<>(
+                    newest.subList(Math.min(page * pageSize, newest.size()), newest.size()));
+            Collections.reverse(pageItems);
+            return ResponseEntity.status(HttpStatus.OK).body(pageItems);
+        }
+
+        Pageable pageable = PageRequest.of(page, pageSize, Sort.by(Sort.Direction.DESC, "id"));
         Slice<ChatMessage> messageSlice = chatMessageRepository.findByGroupId(groupId, pageable);
 
         List<ChatMessageResponse> responseList = messageSlice.getContent().stream()
@@ -125,10 +237,151 @@ public class ChatServiceImpl implements ChatService{
         return ResponseEntity.status(HttpStatus.OK).body(responseList);
     }
 
+    @Override
+    public ResponseEntity<CursorPageResponse<?>> loadGroupHistoryPage(
+            Long groupId, Principal principal, String before, String after, int size) {
+        UserProfile user = getCurrentUser(principal);
+
+        if (!groupMembershipCache.getMembers(groupId).containsUser(user.id())) {
+            throw new GroupNotFoundException("Group not found!");
+        }
+        if (before != null && after != null) {
+            throw new InvalidCursorException("Use either before or after, not both");
+        }
+
+        int pageSize = Math.clamp(size, 1, MAX_HISTORY_PAGE_SIZE);
+        // One extra row tells whether another page exists without a COUNT.
+        // Rows come newest first, except when paging forward with an after cursor.
+        List<ChatMessageResponse> rows;
+        if (after != null) {
+            rows = oldestFirst(groupId, HistoryCursor.decode(after), pageSize + 1);
+        } else if (before != null) {
+            rows = newestFirst(groupId, HistoryCursor.decode(before), pageSize + 1);
+        } else if (pageSize + 1 <= hotHistoryCache.capacity()) {
+            List<CachedMessage> cached = hotHistoryCache.getLatest(groupId, pageSize + 1);
+            if (cached != null) {
+                return ResponseEntity.status(HttpStatus.OK).body(cachedPage(cached, pageSize));
+            }
+            rows = fillLatestMessages(groupId, pageSize + 1);
+            Collections.reverse(rows);
+        } else {
+            rows = newestFirst(groupId, null, pageSize + 1);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ChatMessageResponse> items = new ArrayList<>(rows.subList(0, Math.min(pageSize, rows.size())));
+        if (after == null) {
+            Collections.reverse(items);
+        }
+
+        String nextCursor = null;
+        String prevCursor = null;
+        if (!items.isEmpty()) {
+            long oldestId = items.getFirst().getId();
+            long newestId = items.getLast().getId();
+            nextCursor = hasMore ? HistoryCursor.encode(after != null ? newestId : oldestId) : null;
+            prevCursor = HistoryCursor.encode(after != null ? oldestId : newestId);
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(new CursorPageResponse<>(items, nextCursor, prevCursor, hasMore));
+    }
+
+    /**
+     * Returns the group's latest messages in chronological order, as the ring's JSON when it is
+     * filled and otherwise from the database.
+     */
+    private List<?> latestMessages(Long groupId, int count) {
+        List<CachedMessage> cached = hotHistoryCache.getLatest(groupId, count);
+        if (cached != null) {
+            return cached.stream().map(CachedMessage::raw).toList();
+        }
+        return fillLatestMessages(groupId, count);
+    }
+
+    /**
+     * Reads the group's latest messages from the database, seeds the ring with them and returns
+     * the last {@code count} in chronological order.
+     */
+    private List<ChatMessageResponse> fillLatestMessages(Long groupId, int count) {
+        List<ChatMessageResponse> latest = newestFirst(groupId, null, hotHistoryCache.capacity());
+        Collections.reverse(latest);
+        hotHistoryCache.fill(groupId, latest);
+
+        return new ArrayList<>(latest.subList(Math.max(0, latest.size() - count), latest.size()));
+    }
+
+    // The ring holds one more message than the page when there is an older one.
+    private static CursorPageResponse<RawValue> cachedPage(List<CachedMessage> latest, int pageSize) {
+        boolean hasMore = latest.size() > pageSize;
+        List<CachedMessage> page = latest.subList(Math.max(0, latest.size() - pageSize), latest.size());
+        List<RawValue> items = page.stream().map(CachedMessage::raw).toList();
+
+        String nextCursor = null;
+        String prevCursor = null;
+        if (!page.isEmpty()) {
+            nextCursor = hasMore ? HistoryCursor.encode(page.getFirst().id()) : null;
+            prevCursor = HistoryCursor.encode(page.getLast().id());
+        }
+        return new CursorPageResponse<>(items, nextCursor, prevCursor, hasMore);
+    }
+
+    /**
+     * Up to {@code limit} messages below {@code beforeId}, or the newest ones when it is null, newest
+     * first. Archived history is merged in once the page reaches past what the table holds.
+     */
+    private List<ChatMessageResponse> newestFirst(Long groupId, Long beforeId, int limit) {
+        List<ChatMessageResponse> hot = toResponses(beforeId == null
+                ? chatMessageRepository.findByGroupIdOrderByIdDesc(groupId, Limit.of(limit))
+                : chatMessageRepository.findByGroupIdAndIdLessThanOrderByIdDesc(groupId, beforeId, Limit.of(limit)));
+        if (hot.size() == limit && hot.getLast().getId() > messageArchive.newestArchivedId(groupId)) {
+            return hot;
+        }
+
+        List<ChatMessageResponse> archived = messageArchive.readBefore(
+                groupId, beforeId == null ? Long.MAX_VALUE : beforeId, limit);
+        return mergeHistory(hot, archived, Comparator.comparing(ChatMessageResponse::getId).reversed(), limit);
+    }
+
+    /**
+     * Up to {@code limit} messages above {@code afterId}, oldest first, including archived ones.
+     */
+    private List<ChatMessageResponse> oldestFirst(Long groupId, long afterId, int limit) {
+        List<ChatMessageResponse> hot = toResponses(
+                chatMessageRepository.findByGroupIdAndIdGreaterThanOrderByIdAsc(groupId, afterId, Limit.of(limit)));
+        if (afterId >= messageArchive.newestArchivedId(groupId)) {
+            return hot;
+        }
+
+        List<ChatMessageResponse> archived = messageArchive.readAfter(groupId, afterId, limit);
+        return mergeHistory(hot, archived, Comparator.comparing(ChatMessageResponse::getId), limit);
+    }
+
+    private static List<ChatMessageResponse> mergeHistory(List<ChatMessageResponse> hot, List<ChatMessageResponse> archived,
+                                                          Comparator<ChatMessageResponse> order, int limit) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+
+        // A message can be in both after an interrupted archiving run, the table's copy wins.
+        Map<Long, ChatMessageResponse> byId = new HashMap<>();
+        archived.forEach(message -> byId.put(message.getId(), message));
+        hot.forEach(message -> byId.put(message.getId(), message));
+
+        List<ChatMessageResponse> merged = new ArrayList<>(byId.values());
+        merged.sort(order);
+        return new ArrayList<>(merged.subList(0, Math.min(limit, merged.size())));
+    }
+
+    private List<ChatMessageResponse> toResponses(List<ChatMessage> messages) {
+        return messages.stream()
+                .map(ChatMessageResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void handleStatusChange(StatusUpdateRequest request, Principal principal) {
-        User user = getCurrentUser(principal);
-        presenceService.updateUserStatus(user.getUsername(), request.getStatus());
+        UserProfile user = getCurrentUser(principal);
+        presenceService.updateUserStatus(user.username(), request.getStatus());
 
         ChatMessageResponse notification = new ChatMessageResponse();
         notification.setType(ChatMessage.MessageType.JOIN);
@@ -136,7 +389,7 @@ public class ChatServiceImpl implements ChatService{
         notification.setUserStatus(request.getStatus());
         notification.setTimestamp(LocalDateTime.now());
 
-        List<User> friends = friendshipRepository.findFriendsByUserId(user.getId());
+        List<User> friends = friendshipRepository.findFriendsByUserId(user.id());
         for (User friend : friends) {
              messagingTemplate.convertAndSendToUser(
                      friend.getUsername(),
@@ -146,24 +399,23 @@ public class ChatServiceImpl implements ChatService{
         }
     }
 
-    private User getCurrentUser(Principal principal) {
+    private UserProfile getCurrentUser(Principal principal) {
         if (principal == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
         }
 
-        return userRepository.findByUsername(principal.getName())
-                .orElseThrow(() -> new UsernameNotFoundException(principal.getName()));
+        return userProfileCache.getByUsername(principal.getName());
     }
 
-    private OnlineInfoResponse senderInfo(User user) {
-        OnlineInfoResponse onlineUser = presenceService.getOnlineUser(user.getUsername());
+    private OnlineInfoResponse senderInfo(UserProfile user) {
+        OnlineInfoResponse onlineUser = presenceService.getOnlineUser(user.username());
         if (onlineUser != null) {
             return onlineUser;
         }
         return new OnlineInfoResponse(
-                user.getName(),
-                user.getSurname(),
-                user.getUsername(),
+                user.name(),
+                user.surname(),
+                user.username(),
                 UserStatus.ONLINE
         );
     }
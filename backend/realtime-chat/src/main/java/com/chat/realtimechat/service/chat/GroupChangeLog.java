@@ -0,0 +1,16 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.enums.GroupChangeType;
+
+public interface GroupChangeLog {
+    /**
+     * Appends a change to the log in the caller's transaction. {@code userId} is the member the
+     * change is about, or {@code null} for changes to the group itself.
+     */
+    void record(Long groupId, GroupChangeType type, Long userId, Object payload);
+
+    /**
+     * Ids below this may already have been pruned, so a sync cursor older than it cannot be served.
+     */
+    long oldestRetainedId();
+}
@@ -0,0 +1,64 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.config.SchedulingConfig;
+import com.chat.realtimechat.model.entity.chat.GroupChangeEvent;
+import com.chat.realtimechat.model.enums.GroupChangeType;
+import com.chat.realtimechat.repository.chat.GroupChangeEventRepository;
+import com.chat.realtimechat.util.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+@Service
+@Slf4j
+public class GroupChangeLogImpl implements GroupChangeLog {
+
+    private final GroupChangeEventRepository groupChangeEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final Duration retention;
+
+    public GroupChangeLogImpl(
+            GroupChangeEventRepository groupChangeEventRepository,
+            TransactionTemplate transactionTemplate,
+            JsonMapper jsonMapper,
+            @Value("${chat.sync.retentionDays:30}") long retentionDays
+    ) {
+        this.groupChangeEventRepository = groupChangeEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jsonMapper = jsonMapper;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Override
+    public void record(Long groupId, GroupChangeType type, Long userId, Object payload) {
+        GroupChangeEvent event = new GroupChangeEvent();
+        event.setGroupId(groupId);
+        event.setUserId(userId);
+        event.setType(type);
+        event.setPayload(payload != null ? jsonMapper.writeValueAsString(payload) : null);
+        event.setCreatedAt(LocalDateTime.now());
+        groupChangeEventRepository.save(event);
+    }
+
+    @Override
+    public long oldestRetainedId() {
+        return SnowflakeIdGenerator.minIdAt(Instant.now().minus(retention));
+    }
+
+    @Scheduled(fixedDelayString = "${chat.sync.pruneIntervalMs:3600000}", scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER)
+    public void prune() {
+        long beforeId = oldestRetainedId();
+        Integer deleted = transactionTemplate.execute(status -> groupChangeEventRepository.deleteOlderThan(beforeId));
+        if (deleted != null && deleted > 0) {
+            log.info("Pruned {} group change events", deleted);
+        }
+    }
+}
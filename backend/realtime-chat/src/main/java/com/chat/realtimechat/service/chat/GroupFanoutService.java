@@ -0,0 +1,20 @@
+package com.chat.realtimechat.service.chat;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface GroupFanoutService {
+    /**
+     * Delivers a group event to every member, either through each member's
+     * {@code /user/queue/messages} or through the shared {@code /topic/group.{id}}
+     * destination, depending on the size of the group. Only queue deliveries are recorded in the
+     * members' event streams, clients catch up on large groups through the sync endpoint.
+     */
+    void publishToGroup(Long groupId, Collection<String> memberUsernames, Object payload);
+
+    /**
+     * Delivers an event to {@code /user/{username}{destination}} of each user and records it in
+     * their event streams.
+     */
+    void publishToUsers(List<String> usernames, String destination, Object payload);
+}
@@ -0,0 +1,111 @@
+package com.chat.realtimechat.service.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+@Service
+public class GroupFanoutServiceImpl implements GroupFanoutService {
+
+    private static final String MESSAGES_DESTINATION = "/queue/messages";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final UserEventStream userEventStream;
+    private final int topicThreshold;
+
+    private final Counter queueFrames;
+    private final Counter topicFrames;
+    private final DistributionSummary framesPerMessage;
+
+    public GroupFanoutServiceImpl(
+            SimpMessagingTemplate messagingTemplate,
+            UserEventStream userEventStream,
+            MeterRegistry meterRegistry,
+            @Value("${chat.fanout.topicThreshold:100}") int topicThreshold
+    ) {
+        this.messagingTemplate = messagingTemplate;
+        this.userEventStream = userEventStream;
+        this.topicThreshold = topicThreshold;
+
+        this.queueFrames = Counter.builder("chat.fanout.frames")
+                .tag("mode", "queue")
+                .description("Frames published to the broker for group events")
+                .register(meterRegistry);
+        this.topicFrames = Counter.builder("chat.fanout.frames")
+                .tag("mode", "topic")
+                .description("Frames published to the broker for group events")
+                .register(meterRegistry);
+        this.framesPerMessage = DistributionSummary.builder("chat.fanout.frames.per.message")
+                .description("Broker frames published for a single group event")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void publishToGroup(Long groupId, Collection<String> memberUsernames, Object payload) {
+        Message<?> frame = encode(payload);
+
+        if (memberUsernames.size() >= topicThreshold) {
+            messagingTemplate.send("/topic/group." + groupId, frame);
+            topicFrames.increment();
+            framesPerMessage.record(1);
+            return;
+        }
+
+        sendToUsers(List.copyOf(memberUsernames), MESSAGES_DESTINATION, frame);
+        queueFrames.increment(memberUsernames.size());
+        framesPerMessage.record(memberUsernames.size());
+    }
+
+    @Override
+    public void publishToUsers(List<String> usernames, String destination, Object payload) {
+        sendToUsers(usernames, destination, encode(payload));
+    }
+
+    // Every frame shares the encoded payload, only the headers differ per user.
+    private void sendToUsers(List<String> usernames, String destination, Message<?> frame) {
+        List<String> eventIds = userEventStream.append(usernames, destination, payloadBytes(frame));
+
+        String userPrefix = messagingTemplate.getUserDestinationPrefix();
+        for (int i = 0; i < usernames.size(); i++) {
+            // Encoded the way convertAndSendToUser does, the user destination resolver decodes it.
+            String user = StringUtils.replace(usernames.get(i), "/", "%2F");
+            messagingTemplate.send(userPrefix + user + destination, withEventId(frame, eventIds.get(i)));
+        }
+    }
+
+    private static Message<?> withEventId(Message<?> frame, String eventId) {
+        if (eventId == null) {
+            return frame;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(frame);
+        accessor.setNativeHeader(UserEventStream.EVENT_ID_HEADER, eventId);
+        return MessageBuilder.createMessage(frame.getPayload(), accessor.getMessageHeaders());
+    }
+
+    private static byte[] payloadBytes(Message<?> frame) {
+        Object payload = frame.getPayload();
+        return payload instanceof byte[] bytes ? bytes : payload.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Message<?> encode(Object payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        Message<?> frame = messagingTemplate.getMessageConverter().toMessage(payload, accessor.getMessageHeaders());
+        if (frame == null) {
+            throw new MessageConversionException("Unable to convert payload of type " + payload.getClass().getName());
+        }
+        return frame;
+    }
+}
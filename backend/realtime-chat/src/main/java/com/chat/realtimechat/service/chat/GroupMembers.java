@@ -0,0 +1,53 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.enums.GroupType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable snapshot of a group's recipients, kept by {@link GroupMembershipCache}.
+ * {@code memberIds[i]} and {@code usernames[i]} describe the same member.
+ */
+public record GroupMembers(
+        Long groupId,
+        String name,
+        GroupType type,
+        long[] memberIds,
+        String[] usernames
+) {
+    public boolean containsUser(long userId) {
+        for (long memberId : memberIds) {
+            if (memberId == userId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean containsUsername(String username) {
+        for (String member : usernames) {
+            if (member.equals(username)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Long userIdOf(String username) {
+        for (int i = 0; i < usernames.length; i++) {
+            if (usernames[i].equals(username)) {
+                return memberIds[i];
+            }
+        }
+        return null;
+    }
+
+    public List<String> usernameList() {
+        return Arrays.asList(usernames);
+    }
+
+    public int size() {
+        return memberIds.length;
+    }
+}
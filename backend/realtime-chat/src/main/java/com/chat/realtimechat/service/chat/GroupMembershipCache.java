@@ -0,0 +1,19 @@
+package com.chat.realtimechat.service.chat;
+
+import java.util.Collection;
+
+public interface GroupMembershipCache {
+    /**
+     * Returns the members of an active group, loading them on a cache miss.
+     *
+     * @throws com.chat.realtimechat.exception.chat.GroupNotFoundException if the group does not exist or is deleted
+     */
+    GroupMembers getMembers(Long groupId);
+
+    /**
+     * Evicts the group on this node and, once the current transaction commits, on every other node.
+     */
+    void invalidate(Long groupId);
+
+    void invalidate(Collection<Long> groupIds);
+}
@@ -0,0 +1,99 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.exception.chat.GroupNotFoundException;
+import com.chat.realtimechat.model.dto.projection.GroupMemberRow;
+import com.chat.realtimechat.repository.chat.ChatGroupMemberRepository;
+import com.chat.realtimechat.util.InvalidatingLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+@Service
+public class GroupMembershipCacheImpl implements GroupMembershipCache {
+
+    private static final String INVALIDATION_CHANNEL = "chat:cache:group-members";
+
+    private final ChatGroupMemberRepository chatGroupMemberRepository;
+    private final InvalidatingLruCache<Long, GroupMembers> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public GroupMembershipCacheImpl(
+            ChatGroupMemberRepository chatGroupMemberRepository,
+            StringRedisTemplate stringRedisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            MeterRegistry meterRegistry,
+            @Value("${chat.cache.membership.maxGroups:10000}") int maxGroups,
+            @Value("${chat.cache.membership.ttlMs:30000}") long ttlMs
+    ) {
+        this.chatGroupMemberRepository = chatGroupMemberRepository;
+        this.entries = new InvalidatingLruCache<>(INVALIDATION_CHANNEL, Long::valueOf, maxGroups,
+                Duration.ofMillis(ttlMs), stringRedisTemplate, listenerContainer);
+
+        this.hits = Counter.builder("chat.cache.membership.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("chat.cache.membership.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("chat.cache.membership.size", entries, InvalidatingLruCache::size)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribeToInvalidations() {
+        entries.subscribeToInvalidations();
+    }
+
+    @Override
+    public GroupMembers getMembers(Long groupId) {
+        GroupMembers cached = entries.get(groupId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        long loadGeneration = entries.generation();
+        GroupMembers loaded = load(groupId);
+        entries.put(groupId, loaded, loadGeneration);
+        return loaded;
+    }
+
+    @Override
+    public void invalidate(Long groupId) {
+        entries.invalidate(groupId);
+    }
+
+    @Override
+    public void invalidate(Collection<Long> groupIds) {
+        groupIds.forEach(this::invalidate);
+    }
+
+    private GroupMembers load(Long groupId) {
+        List<GroupMemberRow> rows = chatGroupMemberRepository.findMemberRows(groupId);
+        if (rows.isEmpty()) {
+            throw new GroupNotFoundException("Group not found");
+        }
+
+        long[] memberIds = new long[rows.size()];
+        String[] usernames = new String[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            memberIds[i] = rows.get(i).userId();
+            usernames[i] = rows.get(i).username();
+        }
+
+        GroupMemberRow first = rows.getFirst();
+        return new GroupMembers(groupId, first.groupName(), first.groupType(), memberIds, usernames);
+    }
+}
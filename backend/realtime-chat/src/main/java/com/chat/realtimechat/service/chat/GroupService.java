@@ -2,6 +2,7 @@ package com.chat.realtimechat.service.chat;
 
 import com.chat.realtimechat.model.dto.request.UpdateGroupRequest;
 import com.chat.realtimechat.model.dto.response.ChatGroupResponse;
+import com.chat.realtimechat.model.dto.response.UnreadCountsResponse;
 import com.chat.realtimechat.model.entity.chat.ChatGroup;
 import com.chat.realtimechat.model.entity.users.User;
 import org.springframework.web.multipart.MultipartFile;
@@ -17,6 +18,8 @@ public interface GroupService {
 
     Page<ChatGroupResponse> getUserGroupsResponse(String username, Pageable pageable);
 
+    UnreadCountsResponse getUnreadCounts(String username);
+
     ChatGroupResponse getGroupInfo(Long groupId, String username);
 
     ChatGroup updateGroup(Long groupId, UpdateGroupRequest request, String username, MultipartFile image);
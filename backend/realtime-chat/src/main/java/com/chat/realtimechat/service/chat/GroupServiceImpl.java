@@ -10,18 +10,21 @@ import com.chat.realtimechat.model.dto.request.UpdateGroupRequest;
 import com.chat.realtimechat.model.dto.response.ChatGroupMemberResponse;
 import com.chat.realtimechat.model.dto.response.ChatGroupResponse;
 import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.dto.response.UnreadCountsResponse;
 import com.chat.realtimechat.model.entity.chat.ChatGroup;
 import com.chat.realtimechat.model.entity.chat.ChatGroupMember;
 import com.chat.realtimechat.model.entity.chat.ChatMessage;
 import com.chat.realtimechat.model.entity.users.User;
+import com.chat.realtimechat.model.enums.GroupChangeType;
 import com.chat.realtimechat.model.enums.GroupType;
 import com.chat.realtimechat.repository.chat.ChatGroupRepository;
 import com.chat.realtimechat.repository.chat.ChatMessageRepository;
 import com.chat.realtimechat.repository.users.UserRepository;
+import com.chat.realtimechat.service.users.UserProfileCache;
 import com.chat.realtimechat.util.UploadUtils;
+import com.chat.realtimechat.websocket.subscription.GroupSubscriptionRegistry;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Page;
@@ -39,8 +42,16 @@ public class GroupServiceImpl implements GroupService {
     private final UserRepository userRepository;
     private final ChatGroupRepository chatGroupRepository;
     private final ChatMessageRepository chatMessageRepository;
-    private final SimpMessagingTemplate messagingTemplate;
     private final UploadUtils uploadUtils;
+    private final GroupFanoutService groupFanoutService;
+    private final GroupMembershipCache groupMembershipCache;
+    private final ReadCursorService readCursorService;
+    private final UnreadCounterService unreadCounterService;
+    private final UserProfileCache userProfileCache;
+    private final InboxQueryService inboxQueryService;
+    private final HotHistoryCache hotHistoryCache;
+    private final GroupChangeLog groupChangeLog;
+    private final GroupSubscriptionRegistry groupSubscriptionRegistry;
 
     private User findUserByUsername(String username) {
         return userRepository.findByUsername(username)
@@ -59,12 +70,30 @@ public class GroupServiceImpl implements GroupService {
 
         ChatMessageResponse response = ChatMessageResponse.fromEntity(saved);
 
-        group.getMembers().forEach(m -> {
-            messagingTemplate.convertAndSendToUser(
-                    m.getUser().getUsername(),
-                    "/queue/messages",
-                    response);
-        });
+        groupFanoutService.publishToGroup(group.getId(), memberUsernames(group), response);
+        hotHistoryCache.append(group.getId(), response);
+    }
+
+    private List<String> memberUsernames(ChatGroup group) {
+        return group.getMembers().stream()
+                .map(m -> m.getUser().getUsername())
+                .toList();
+    }
+
+    private void recordMembersAdded(ChatGroup group, Collection<ChatGroupMember> members) {
+        for (ChatGroupMember member : members) {
+            groupChangeLog.record(group.getId(), GroupChangeType.MEMBER_ADDED, member.getUser().getId(),
+                    ChatGroupMemberResponse.fromEntity(member));
+        }
+    }
+
+    // Read cursors are persisted in batches, so the stored value can lag behind the pending one.
+    private LocalDateTime readCursorOf(Long groupId, Long userId, LocalDateTime stored) {
+        LocalDateTime pending = readCursorService.pendingCursor(groupId, userId);
+        if (pending != null && (stored == null || pending.isAfter(stored))) {
+            return pending;
+        }
+        return stored;
     }
 
     private ChatGroup getGroupAndValidateAccess(Long groupId, String username) {
@@ -91,14 +120,11 @@ public class GroupServiceImpl implements GroupService {
     private void notifyMembers(ChatGroup group, Set<User> recipients, String senderUsername) {
         ChatGroupResponse response = ChatGroupResponse.fromEntity(group);
 
-        for (User member : recipients) {
-            if (!member.getUsername().equals(senderUsername)) {
-                messagingTemplate.convertAndSendToUser(
-                        member.getUsername(),
-                        "/queue/groups",
-                        response);
-            }
-        }
+        List<String> usernames = recipients.stream()
+                .map(User::getUsername)
+                .filter(recipient -> !recipient.equals(senderUsername))
+                .toList();
+        groupFanoutService.publishToUsers(usernames, "/queue/groups", response);
     }
 
     @Override
@@ -128,6 +154,7 @@ public class GroupServiceImpl implements GroupService {
         others.forEach(group::addMember);
 
         ChatGroup savedGroup = chatGroupRepository.save(group);
+        recordMembersAdded(savedGroup, savedGroup.getMembers());
 
         notifyMembers(savedGroup, new HashSet<>(others), creatorUsername);
 
@@ -150,47 +177,38 @@ public class GroupServiceImpl implements GroupService {
         group.addMember(user1);
         group.addMember(user2);
 
-        return chatGroupRepository.save(group);
+        ChatGroup savedGroup = chatGroupRepository.save(group);
+        recordMembersAdded(savedGroup, savedGroup.getMembers());
+        return savedGroup;
     }
 
     @Override
     public Page<ChatGroupResponse> getUserGroupsResponse(String username, Pageable pageable) {
-        User user = findUserByUsername(username);
-
-        Page<ChatGroup> groups = chatGroupRepository.findUserGroups(user, pageable);
-
-        return groups.map(group -> {
-            ChatGroupResponse dto = ChatGroupResponse.fromEntity(group);
-
-            dto.setMembers(
-                    group.getMembers().stream().map(ChatGroupMemberResponse::fromEntity).collect(Collectors.toSet()));
-
-            dto.setLastMessage(group.getLastMessageContent());
-            dto.setLastMessageTime(group.getLastMessageTime());
-
-            if (group.getType().equals(GroupType.PRIVATE)) {
-                User otherUser = group.getMembers().stream()
-                        .map(ChatGroupMember::getUser)
-                        .filter(u -> !u.getId().equals(user.getId()))
-                        .findFirst()
-                        .orElse(user);
-
-                dto.setName(otherUser.getName() + " " + otherUser.getSurname());
-            }
-
-            ChatGroupMember membership = group.getMembers().stream()
-                    .filter(m -> m.getUser().getId().equals(user.getId()))
-                    .findFirst()
-                    .orElseThrow();
-
-            long count = chatMessageRepository.countUnreadMessages(
-                    group.getId(),
-                    user.getId(),
-                    membership.getLastReadTime());
-            dto.setUnreadCount((int) count);
-            dto.setMuted(membership.isMuted());
-            return dto;
+        Long userId = userProfileCache.getByUsername(username).id();
+
+        Page<ChatGroupResponse> groups = inboxQueryService.getInboxPage(userId, pageable);
+        Map<Long, Long> unreadCounts = unreadCounterService.getUnreadCounts(
+                userId, groups.getContent().stream().map(ChatGroupResponse::getId).toList());
+
+        groups.forEach(dto -> {
+            // Rebuilt rather than mutated in place, the member DTOs hash on their fields.
+            dto.setMembers(dto.getMembers().stream()
+                    .map(member -> {
+                        member.setLastReadTime(readCursorOf(dto.getId(), member.getId(), member.getLastReadTime()));
+                        return member;
+                    })
+                    .collect(Collectors.toSet()));
+            dto.setUnreadCount(unreadCounts.getOrDefault(dto.getId(), 0L).intValue());
         });
+        return groups;
+    }
+
+    @Override
+    public UnreadCountsResponse getUnreadCounts(String username) {
+        Long userId = userProfileCache.getByUsername(username).id();
+        Map<Long, Long> counts = unreadCounterService.getAllUnreadCounts(userId);
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        return new UnreadCountsResponse(total, counts);
     }
 
     @Override
@@ -223,7 +241,7 @@ public class GroupServiceImpl implements GroupService {
             response.setName(otherUser.getName() + " " + otherUser.getSurname());
         }
 
-        chatMessageRepository.findFirstByGroupIdOrderByTimestampDesc(group.getId())
+        chatMessageRepository.findFirstByGroupIdOrderByIdDesc(group.getId())
                 .ifPresent(message -> {
                     response.setLastMessage(message.getContent());
                     response.setLastMessageTime(message.getTimestamp());
@@ -249,6 +267,7 @@ public class GroupServiceImpl implements GroupService {
         if (request.getName() != null && !request.getName().isBlank()) {
             String oldName = group.getName();
             group.setName(request.getName());
+            groupMembershipCache.invalidate(groupId);
 
             sendSystemMessage(group, "User " + username + " changed group name to: " + request.getName());
         }
@@ -266,12 +285,8 @@ public class GroupServiceImpl implements GroupService {
         event.put("name", savedGroup.getName());
         event.put("imageUrl", fullImageUrl);
 
-        savedGroup.getMembers().forEach(m -> {
-            messagingTemplate.convertAndSendToUser(
-                    m.getUser().getUsername(),
-                    "/queue/messages",
-                    event);
-        });
+        groupFanoutService.publishToGroup(groupId, memberUsernames(savedGroup), event);
+        groupChangeLog.record(groupId, GroupChangeType.GROUP_UPDATED, null, event);
 
         return savedGroup;
     }
@@ -283,6 +298,7 @@ public class GroupServiceImpl implements GroupService {
         List<User> newMembers = userRepository.findAllById(memberIds);
         newMembers.forEach(group::addMember);
         chatGroupRepository.save(group);
+        groupMembershipCache.invalidate(groupId);
 
         String addedNames = newMembers.stream()
                 .map(User::getUsername)
@@ -295,18 +311,15 @@ public class GroupServiceImpl implements GroupService {
                 .filter(m -> memberIds.contains(m.getUser().getId()))
                 .map(ChatGroupMemberResponse::fromEntity)
                 .collect(Collectors.toList());
+        addedMembersDto.forEach(member ->
+                groupChangeLog.record(groupId, GroupChangeType.MEMBER_ADDED, member.getId(), member));
 
         Map<String, Object> event = new HashMap<>();
         event.put("type", "MEMBER_ADDED");
         event.put("groupId", groupId);
         event.put("members", addedMembersDto);
 
-        group.getMembers().forEach(m -> {
-            messagingTemplate.convertAndSendToUser(
-                    m.getUser().getUsername(),
-                    "/queue/messages",
-                    event);
-        });
+        groupFanoutService.publishToGroup(groupId, memberUsernames(group), event);
 
         notifyMembers(group, new HashSet<>(newMembers), username);
 
@@ -334,7 +347,10 @@ public class GroupServiceImpl implements GroupService {
         usersToRemove.forEach(u -> {
             group.removeMember(u);
             group.getAdmins().remove(u);
+            groupChangeLog.record(groupId, GroupChangeType.MEMBER_REMOVED, u.getId(), null);
         });
+        groupMembershipCache.invalidate(groupId);
+        groupSubscriptionRegistry.revoke(groupId, usersToRemove.stream().map(User::getUsername).toList());
 
         if (group.getMembers().isEmpty()) {
             group.setDeleted(true);
@@ -353,21 +369,14 @@ public class GroupServiceImpl implements GroupService {
         event.put("groupId", groupId);
         event.put("userIds", memberIds);
 
-        group.getMembers().forEach(m -> {
-            messagingTemplate.convertAndSendToUser(
-                    m.getUser().getUsername(),
-                    "/queue/messages",
-                    event);
-        });
+        groupFanoutService.publishToGroup(groupId, memberUsernames(group), event);
 
-        for (User u : usersToRemove) {
-            messagingTemplate.convertAndSendToUser(
-                    u.getUsername(),
-                    "/queue/groups",
-                    Map.of(
-                            "groupId", groupId,
-                            "eventType", "REMOVE"));
-        }
+        groupFanoutService.publishToUsers(
+                usersToRemove.stream().map(User::getUsername).toList(),
+                "/queue/groups",
+                Map.of(
+                        "groupId", groupId,
+                        "eventType", "REMOVE"));
 
         chatGroupRepository.save(group);
 
@@ -409,38 +418,8 @@ public class GroupServiceImpl implements GroupService {
     }
 
     @Override
-    @Transactional
     public void markAsRead(Long groupId, String username) {
-        ChatGroup group = chatGroupRepository.findById(groupId)
-                .orElseThrow(() -> new GroupNotFoundException("Group not found"));
-
-        ChatGroupMember member = group.getMembers().stream()
-                .filter(m -> m.getUser().getUsername().equals(username))
-                .findFirst()
-                .orElseThrow(() -> new GroupAccessDeniedException("User not in group"));
-
-        if (group.getLastMessageTime() != null && member.getLastReadTime() != null) {
-            if (member.getLastReadTime().isAfter(group.getLastMessageTime())) {
-                return;
-            }
-        }
-
-        member.setLastReadTime(LocalDateTime.now());
-
-        ChatGroupMemberResponse memberDto = ChatGroupMemberResponse.fromEntity(member);
-
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("type", "READ_RECEIPT");
-        payload.put("groupId", groupId);
-        payload.put("member", memberDto);
-
-        group.getMembers().forEach(m -> {
-            messagingTemplate.convertAndSendToUser(
-                    m.getUser().getUsername(),
-                    "/queue/messages",
-                    payload);
-        });
-
+        readCursorService.markAsRead(groupId, username);
     }
 
     @Override
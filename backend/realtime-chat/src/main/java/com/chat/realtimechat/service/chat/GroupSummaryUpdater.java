@@ -0,0 +1,11 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.entity.chat.ChatMessage;
+
+public interface GroupSummaryUpdater {
+    /**
+     * Remembers the message as the latest one of its group. Only the newest message per group
+     * is kept and written to the group's last message columns on the next flush.
+     */
+    void messagePersisted(ChatMessage message);
+}
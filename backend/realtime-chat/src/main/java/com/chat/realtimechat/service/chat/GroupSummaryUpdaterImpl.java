@@ -0,0 +1,105 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.entity.chat.ChatMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+public class GroupSummaryUpdaterImpl implements GroupSummaryUpdater {
+
+    // The time guard keeps a slower node from overwriting a newer summary written by another one.
+    private static final String UPDATE_GROUP_SUMMARY_SQL =
+            "UPDATE chat_group SET last_message_content = ?, last_message_time = ? " +
+            "WHERE id = ? AND (last_message_time IS NULL OR last_message_time < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, Summary> pending = new ConcurrentHashMap<>();
+
+    private final Counter received;
+    private final Counter written;
+
+    public GroupSummaryUpdaterImpl(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+
+        this.received = Counter.builder("chat.summary.updates")
+                .tag("stage", "received")
+                .description("Group summary updates requested and written")
+                .register(meterRegistry);
+        this.written = Counter.builder("chat.summary.updates")
+                .tag("stage", "written")
+                .description("Group summary updates requested and written")
+                .register(meterRegistry);
+        Gauge.builder("chat.summary.pending", pending, Map::size)
+                .description("Groups with a summary waiting for the next flush")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void messagePersisted(ChatMessage message) {
+        Summary summary = new Summary(message.getId(), message.getContent(), message.getTimestamp());
+        pending.merge(message.getGroup().getId(), summary, Summary::newest);
+        received.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${chat.summary.flushIntervalMs:250}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<Long, Summary>> batch = new ArrayList<>(pending.size());
+        for (Long groupId : pending.keySet()) {
+            Summary summary = pending.remove(groupId);
+            if (summary != null) {
+                batch.add(Map.entry(groupId, summary));
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPDATE_GROUP_SUMMARY_SQL, batch, batch.size(), (ps, entry) -> {
+                        ps.setString(1, entry.getValue().content());
+                        ps.setObject(2, entry.getValue().timestamp());
+                        ps.setLong(3, entry.getKey());
+                        ps.setObject(4, entry.getValue().timestamp());
+                    }));
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to update summaries of {} groups, retrying on next flush", batch.size(), e);
+            batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), Summary::newest));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private record Summary(long messageId, String content, LocalDateTime timestamp) {
+        // Snowflake ids follow send order more closely than timestamps taken on different threads.
+        private static Summary newest(Summary a, Summary b) {
+            return a.messageId() >= b.messageId() ? a : b;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface HotHistoryCache {
+    /**
+     * Number of latest messages kept per group.
+     */
+    int capacity();
+
+    /**
+     * Returns up to {@code count} latest messages in chronological order, or {@code null} if the
+     * group's ring has not been filled from the database yet.
+     */
+    List<CachedMessage> getLatest(Long groupId, int count);
+
+    /**
+     * Seeds the ring with the group's latest messages as read from the database.
+     */
+    void fill(Long groupId, List<ChatMessageResponse> latest);
+
+    /**
+     * Adds a message to the group's ring, once the current transaction commits if there is one.
+     */
+    void append(Long groupId, ChatMessageResponse message);
+
+    /**
+     * Drops the groups' rings now and again once the current transaction commits.
+     */
+    void evict(Collection<Long> groupIds);
+}
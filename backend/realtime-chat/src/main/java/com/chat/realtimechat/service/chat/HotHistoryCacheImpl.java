@@ -0,0 +1,245 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the latest messages of each group in Redis so that every node serves the first history
+ * page from the same ring. A ring is a sorted set of zero-padded message ids, all with score 0 so
+ * that lexical order is id order (ids do not fit a double score), next to a hash holding each
+ * message's JSON. A ring only answers reads once {@link #fill} has marked it complete; appends that
+ * reach a ring before it is filled are merged with the database rows instead of being lost.
+ * <p>
+ * The ready marker outlives neither a short TTL nor a failed append. A ring that missed a message
+ * because even its eviction failed, with Redis unreachable, is refilled from the database once the
+ * marker expires.
+ */
+@Service
+@Slf4j
+public class HotHistoryCacheImpl implements HotHistoryCache {
+
+    private static final String KEY_PREFIX = "chat:history:";
+    private static final String PAYLOADS_SUFFIX = ":payloads";
+    private static final String READY_SUFFIX = ":ready";
+    private static final String INDEX_KEY = "chat:history:groups";
+
+    // KEYS: ring, payloads, ready marker, index. ARGV: capacity, ttl ms, now, group id, ready ttl ms
+    // (0 for an append, which leaves the marker alone), id/json pairs...
+    private static final RedisScript<Long> ADD = new DefaultRedisScript<>(
+            "for i = 6, #ARGV, 2 do " +
+            "  redis.call('ZADD', KEYS[1], 0, ARGV[i]) " +
+            "  redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 1]) " +
+            "end " +
+            "local excess = redis.call('ZRANGE', KEYS[1], 0, -tonumber(ARGV[1]) - 1) " +
+            "if #excess > 0 then " +
+            "  redis.call('HDEL', KEYS[2], unpack(excess)) " +
+            "  redis.call('ZREMRANGEBYRANK', KEYS[1], 0, #excess - 1) " +
+            "end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "redis.call('PEXPIRE', KEYS[2], ARGV[2]) " +
+            "if ARGV[5] ~= '0' then redis.call('SET', KEYS[3], '1', 'PX', ARGV[5]) end " +
+            "redis.call('ZADD', KEYS[4], ARGV[3], ARGV[4]) " +
+            "return redis.call('ZCARD', KEYS[1])",
+            Long.class);
+
+    // KEYS: ring, payloads, ready marker. ARGV: count. Returns nil unless the ring has been filled,
+    // otherwise id/json pairs.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[3]) == 0 then return false end " +
+            "local ids = redis.call('ZRANGE', KEYS[1], -tonumber(ARGV[1]), -1) " +
+            "if #ids == 0 then return {} end " +
+            "local payloads = redis.call('HMGET', KEYS[2], unpack(ids)) " +
+            "local entries = {} " +
+            "for i = 1, #ids do " +
+            "  entries[2 * i - 1] = ids[i] " +
+            "  entries[2 * i] = payloads[i] " +
+            "end " +
+            "return entries",
+            List.class);
+
+    private static final int ID_WIDTH = 19;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final JsonMapper jsonMapper;
+    private final int capacity;
+    private final long ttlMs;
+    private final long readyTtlMs;
+    private final int maxGroups;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public HotHistoryCacheImpl(
+            StringRedisTemplate stringRedisTemplate,
+            JsonMapper jsonMapper,
+            MeterRegistry meterRegistry,
+            @Value("${chat.history.cache.size:50}") int capacity,
+            @Value("${chat.history.cache.ttlMs:3600000}") long ttlMs,
+            @Value("${chat.history.cache.readyTtlMs:60000}") long readyTtlMs,
+            @Value("${chat.history.cache.maxGroups:20000}") int maxGroups
+    ) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.jsonMapper = jsonMapper;
+        this.capacity = capacity;
+        this.ttlMs = ttlMs;
+        this.readyTtlMs = Math.max(readyTtlMs, 1);
+        this.maxGroups = maxGroups;
+
+        this.hits = Counter.builder("chat.history.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("chat.history.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CachedMessage> getLatest(Long groupId, int count) {
+        List<String> entries;
+        try {
+            entries = stringRedisTemplate.execute(READ, List.of(ringKey(groupId), payloadsKey(groupId), readyKey(groupId)),
+                    Integer.toString(Math.min(count, capacity)));
+        } catch (RuntimeException e) {
+            log.warn("Could not read history cache of group {}", groupId, e);
+            entries = null;
+        }
+
+        if (entries == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+
+        List<CachedMessage> messages = new ArrayList<>(entries.size() / 2);
+        for (int i = 0; i + 1 < entries.size(); i += 2) {
+            if (entries.get(i + 1) != null) {
+                messages.add(new CachedMessage(Long.parseLong(entries.get(i)), entries.get(i + 1)));
+            }
+        }
+        return messages;
+    }
+
+    @Override
+    public void fill(Long groupId, List<ChatMessageResponse> latest) {
+        add(groupId, latest, true);
+    }
+
+    @Override
+    public void append(Long groupId, ChatMessageResponse message) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A rolled back message must not show up in the ring.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(groupId, List.of(message), false);
+                }
+            });
+        } else {
+            add(groupId, List.of(message), false);
+        }
+    }
+
+    @Override
+    public void evict(Collection<Long> groupIds) {
+        if (groupIds.isEmpty()) {
+            return;
+        }
+        deleteRings(groupIds);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Long> ids = List.copyOf(groupIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteRings(ids);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.history.cache.trimIntervalMs:60000}")
+    public void trimToMaxGroups() {
+        Long groups = stringRedisTemplate.opsForZSet().zCard(INDEX_KEY);
+        if (groups == null || groups <= maxGroups) {
+            return;
+        }
+
+        Set<String> coldest = stringRedisTemplate.opsForZSet().range(INDEX_KEY, 0, groups - maxGroups - 1);
+        if (coldest == null || coldest.isEmpty()) {
+            return;
+        }
+        deleteRings(coldest.stream().map(Long::valueOf).toList());
+    }
+
+    private void add(Long groupId, List<ChatMessageResponse> messages, boolean markReady) {
+        List<String> args = new ArrayList<>(messages.size() * 2 + 5);
+        args.add(Integer.toString(capacity));
+        args.add(Long.toString(ttlMs));
+        args.add(Long.toString(System.currentTimeMillis()));
+        args.add(groupId.toString());
+        args.add(markReady ? Long.toString(readyTtlMs) : "0");
+
+        try {
+            for (ChatMessageResponse message : messages) {
+                args.add(String.format("%0" + ID_WIDTH + "d", message.getId()));
+                args.add(jsonMapper.writeValueAsString(message));
+            }
+            stringRedisTemplate.execute(ADD, List.of(ringKey(groupId), payloadsKey(groupId), readyKey(groupId), INDEX_KEY),
+                    args.toArray());
+        } catch (RuntimeException e) {
+            // A ring that missed an append would serve an incomplete first page, so drop it.
+            log.warn("Could not update history cache of group {}", groupId, e);
+            deleteRings(List.of(groupId));
+        }
+    }
+
+    private void deleteRings(Collection<Long> groupIds) {
+        try {
+            List<String> keys = new ArrayList<>(groupIds.size() * 3);
+            for (Long groupId : groupIds) {
+                keys.add(ringKey(groupId));
+                keys.add(payloadsKey(groupId));
+                keys.add(readyKey(groupId));
+            }
+            stringRedisTemplate.delete(keys);
+            stringRedisTemplate.opsForZSet().remove(INDEX_KEY, groupIds.stream().map(String::valueOf).toArray());
+        } catch (RuntimeException e) {
+            log.warn("Could not evict history cache of groups {}", groupIds, e);
+        }
+    }
+
+    private static String ringKey(Long groupId) {
+        return KEY_PREFIX + groupId;
+    }
+
+    private static String payloadsKey(Long groupId) {
+        return KEY_PREFIX + groupId + PAYLOADS_SUFFIX;
+    }
+
+    private static String readyKey(Long groupId) {
+        return KEY_PREFIX + groupId + READY_SUFFIX;
+    }
+}
@@ -0,0 +1,13 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.response.ChatGroupResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface InboxQueryService {
+    /**
+     * Loads a page of the user's conversations with members, admins, last message and mute flag,
+     * using a fixed number of queries regardless of the page size. Unread counts are left at zero.
+     */
+    Page<ChatGroupResponse> getInboxPage(Long userId, Pageable pageable);
+}
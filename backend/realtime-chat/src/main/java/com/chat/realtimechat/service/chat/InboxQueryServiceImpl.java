@@ -0,0 +1,94 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.config.UploadUrlConfig;
+import com.chat.realtimechat.model.dto.projection.GroupAdminRow;
+import com.chat.realtimechat.model.dto.projection.InboxGroupRow;
+import com.chat.realtimechat.model.dto.projection.InboxMemberRow;
+import com.chat.realtimechat.model.dto.response.ChatGroupMemberResponse;
+import com.chat.realtimechat.model.dto.response.ChatGroupResponse;
+import com.chat.realtimechat.model.dto.response.UserResponse;
+import com.chat.realtimechat.model.enums.GroupType;
+import com.chat.realtimechat.repository.chat.ChatGroupMemberRepository;
+import com.chat.realtimechat.repository.chat.ChatGroupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class InboxQueryServiceImpl implements InboxQueryService {
+
+    private final ChatGroupMemberRepository chatGroupMemberRepository;
+    private final ChatGroupRepository chatGroupRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ChatGroupResponse> getInboxPage(Long userId, Pageable pageable) {
+        Page<InboxGroupRow> rows = chatGroupMemberRepository.findInboxPage(userId, pageable);
+        if (rows.isEmpty()) {
+            return rows.map(this::toResponse);
+        }
+
+        List<Long> groupIds = rows.getContent().stream().map(InboxGroupRow::groupId).toList();
+
+        Map<Long, List<InboxMemberRow>> membersByGroup = chatGroupMemberRepository.findInboxMembers(groupIds).stream()
+                .collect(Collectors.groupingBy(InboxMemberRow::groupId));
+        Map<Long, Set<UserResponse>> adminsByGroup = new HashMap<>();
+        for (GroupAdminRow admin : chatGroupRepository.findAdminRows(groupIds)) {
+            adminsByGroup.computeIfAbsent(admin.groupId(), id -> new HashSet<>()).add(new UserResponse(
+                    admin.userId(), admin.email(), admin.username(), admin.name(), admin.surname()));
+        }
+
+        return rows.map(row -> {
+            ChatGroupResponse response = toResponse(row);
+            List<InboxMemberRow> members = membersByGroup.getOrDefault(row.groupId(), List.of());
+
+            response.setMembers(members.stream().map(InboxQueryServiceImpl::toMemberResponse).collect(Collectors.toSet()));
+            response.setAdmins(adminsByGroup.getOrDefault(row.groupId(), Set.of()));
+
+            if (row.type() == GroupType.PRIVATE) {
+                members.stream()
+                        .filter(m -> !m.userId().equals(userId))
+                        .findFirst()
+                        .or(() -> members.stream().findFirst())
+                        .ifPresent(peer -> response.setName(peer.name() + " " + peer.surname()));
+            }
+            return response;
+        });
+    }
+
+    private ChatGroupResponse toResponse(InboxGroupRow row) {
+        ChatGroupResponse response = new ChatGroupResponse();
+        response.setId(row.groupId());
+        response.setName(row.name());
+        response.setGroupType(row.type());
+        response.setCreatedAt(row.createdAt());
+        response.setLastMessage(row.lastMessageContent());
+        response.setLastMessageTime(row.lastMessageTime());
+        response.setMuted(row.muted());
+
+        if (row.imageUrl() != null && !row.imageUrl().isEmpty()) {
+            response.setImageUrl(UploadUrlConfig.getUploadUrl() + row.imageUrl());
+        }
+        return response;
+    }
+
+    private static ChatGroupMemberResponse toMemberResponse(InboxMemberRow row) {
+        ChatGroupMemberResponse response = new ChatGroupMemberResponse();
+        response.setId(row.userId());
+        response.setUsername(row.username());
+        response.setName(row.name());
+        response.setSurname(row.surname());
+        response.setLastReadTime(row.lastReadTime());
+        return response;
+    }
+}
@@ -0,0 +1,43 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.enums.MessageContentType;
+
+import java.util.List;
+
+/**
+ * Cold tier for the history of inactive groups. Old messages are moved out of chat_message into
+ * compressed segment files and read back when history paging reaches them.
+ */
+public interface MessageArchive {
+    /**
+     * Messages with an id at or above this are never archived, it only grows over time.
+     */
+    long archiveHorizonId();
+
+    /**
+     * Highest archived message id of the group, {@link Long#MIN_VALUE} when nothing is archived.
+     */
+    long newestArchivedId(Long groupId);
+
+    /**
+     * Up to {@code limit} archived messages with an id below {@code beforeId}, newest first.
+     */
+    List<ChatMessageResponse> readBefore(Long groupId, long beforeId, int limit);
+
+    /**
+     * Up to {@code limit} archived messages of the given content type with an id below
+     * {@code beforeId}, newest first.
+     */
+    List<ChatMessageResponse> readBefore(Long groupId, long beforeId, int limit, MessageContentType contentType);
+
+    /**
+     * Up to {@code limit} archived messages with an id above {@code afterId}, oldest first.
+     */
+    List<ChatMessageResponse> readAfter(Long groupId, long afterId, int limit);
+
+    /**
+     * Removes the user's archived messages once the current transaction commits.
+     */
+    void removeSender(String username);
+}
@@ -0,0 +1,447 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.config.SchedulingConfig;
+import com.chat.realtimechat.exception.FileStorageException;
+import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.entity.chat.ChatMessage;
+import com.chat.realtimechat.model.enums.MessageContentType;
+import com.chat.realtimechat.repository.chat.ChatGroupRepository;
+import com.chat.realtimechat.repository.chat.ChatMessageRepository;
+import com.chat.realtimechat.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps archived messages in {@code <dir>/<groupId>/<firstId>-<lastId>-<written>.seg} files.
+ * Segments are never modified. A later archiving run adds a new segment, and removing a sender
+ * replaces the affected segments. Each group's open segments are cached and reloaded when the
+ * group's directory changes, so segments written by the node that ran the archiver are picked up
+ * by the others sharing the directory within {@code chat.archive.recheckMs}.
+ */
+@Service
+@Slf4j
+public class MessageArchiveImpl implements MessageArchive {
+
+    private static final String LOCK_KEY = "chat:archive:lock";
+    private static final Duration LOCK_TTL = Duration.ofHours(1);
+    private static final int DELETE_CHUNK = 1000;
+    private static final FileTime NO_DIRECTORY = FileTime.fromMillis(Long.MIN_VALUE);
+
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    // A row that became the parent of a reply after it was read stays, the archived copy is then
+    // shadowed by it when history is merged.
+    private static final String DELETE_SQL =
+            "DELETE FROM chat_message m WHERE m.id IN (:ids) " +
+            "AND NOT EXISTS (SELECT 1 FROM chat_message c WHERE c.parent_id = m.id)";
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatGroupRepository chatGroupRepository;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final JsonMapper jsonMapper;
+    private final Path root;
+    private final Duration inactiveAfter;
+    private final Duration archiveAfter;
+    private final int segmentMessages;
+    private final int blockMessages;
+    private final int maxGroupsPerRun;
+
+    private final long recheckNanos;
+
+    private final Map<Long, GroupSegments> groups = new ConcurrentHashMap<>();
+
+    private final Timer readTimer;
+    private final Counter archived;
+
+    public MessageArchiveImpl(
+            ChatMessageRepository chatMessageRepository,
+            ChatGroupRepository chatGroupRepository,
+            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            StringRedisTemplate stringRedisTemplate,
+            JsonMapper jsonMapper,
+            MeterRegistry meterRegistry,
+            @Value("${chat.archive.dir:/app/archive}") String dir,
+            @Value("${chat.archive.inactiveDays:180}") long inactiveDays,
+            @Value("${chat.archive.olderThanDays:90}") long olderThanDays,
+            @Value("${chat.archive.segmentMessages:10000}") int segmentMessages,
+            @Value("${chat.archive.blockMessages:64}") int blockMessages,
+            @Value("${chat.archive.maxGroupsPerRun:100}") int maxGroupsPerRun,
+            @Value("${chat.archive.recheckMs:1000}") long recheckMs
+    ) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatGroupRepository = chatGroupRepository;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.jsonMapper = jsonMapper;
+        this.root = Paths.get(dir);
+        this.inactiveAfter = Duration.ofDays(inactiveDays);
+        this.archiveAfter = Duration.ofDays(olderThanDays);
+        this.segmentMessages = segmentMessages;
+        this.blockMessages = blockMessages;
+        this.maxGroupsPerRun = maxGroupsPerRun;
+        this.recheckNanos = TimeUnit.MILLISECONDS.toNanos(recheckMs);
+
+        this.readTimer = Timer.builder("chat.archive.read.duration")
+                .description("Time spent reading one page of archived history")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.archived = Counter.builder("chat.archive.messages")
+                .description("Messages moved from chat_message into archive segments")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long archiveHorizonId() {
+        return SnowflakeIdGenerator.minIdAt(Instant.now().minus(archiveAfter));
+    }
+
+    @Override
+    public long newestArchivedId(Long groupId) {
+        List<ArchiveSegment> newestFirst = segments(groupId).newestFirst();
+        return newestFirst.isEmpty() ? Long.MIN_VALUE : newestFirst.getFirst().lastId();
+    }
+
+    @Override
+    public List<ChatMessageResponse> readBefore(Long groupId, long beforeId, int limit) {
+        return readBefore(groupId, beforeId, limit, s -> s.readBefore(beforeId, limit, jsonMapper));
+    }
+
+    @Override
+    public List<ChatMessageResponse> readBefore(Long groupId, long beforeId, int limit, MessageContentType contentType) {
+        Predicate<ChatMessageResponse> ofType = message -> message.getContentType() == contentType;
+        return readBefore(groupId, beforeId, limit, s -> s.readBefore(beforeId, limit, ofType, jsonMapper));
+    }
+
+    @Override
+    public List<ChatMessageResponse> readAfter(Long groupId, long afterId, int limit) {
+        List<ArchiveSegment> segments = segments(groupId).oldestFirst();
+        if (segments.isEmpty()) {
+            return List.of();
+        }
+
+        return readTimer.record(() -> walk(segments, segment -> segment.lastId() > afterId,
+                (segment, pageEndId) -> segment.firstId() > pageEndId,
+                Comparator.comparing(ChatMessageResponse::getId), limit,
+                s -> s.readAfter(afterId, limit, jsonMapper)));
+    }
+
+    private List<ChatMessageResponse> readBefore(Long groupId, long beforeId, int limit, SegmentRead read) {
+        List<ArchiveSegment> segments = segments(groupId).newestFirst();
+        if (segments.isEmpty()) {
+            return List.of();
+        }
+
+        return readTimer.record(() -> walk(segments, segment -> segment.firstId() < beforeId,
+                (segment, pageEndId) -> segment.lastId() < pageEndId,
+                Comparator.comparing(ChatMessageResponse::getId).reversed(), limit, read));
+    }
+
+    /**
+     * Reads segments in the order given until the page is full and the next segment holds only
+     * messages beyond its end. Segments may overlap after an interrupted run, so the next one is
+     * still read while it can hold messages that belong on the page.
+     */
+    private List<ChatMessageResponse> walk(List<ArchiveSegment> segments, Predicate<ArchiveSegment> relevant,
+                                           BiPredicate<ArchiveSegment, Long> beyondPage,
+                                           Comparator<ChatMessageResponse> order, int limit, SegmentRead read) {
+        List<ChatMessageResponse> page = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            if (!relevant.test(segment)) {
+                continue;
+            }
+            if (page.size() == limit && beyondPage.test(segment, page.getLast().getId())) {
+                break;
+            }
+            page.addAll(read(segment, read));
+            page = merge(page, order, limit);
+        }
+        return page;
+    }
+
+    @Override
+    public void removeSender(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    purgeSender(username);
+                }
+            });
+        } else {
+            purgeSender(username);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.archive.intervalMs:3600000}", scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER)
+    public void archiveInactiveGroups() {
+        String owner = UUID.randomUUID().toString();
+        try {
+            // Only one node archives at a time, the others would pick the same rows.
+            if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, owner, LOCK_TTL))) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not take the archive lock", e);
+            return;
+        }
+
+        try {
+            LocalDateTime inactiveSince = LocalDateTime.now().minus(inactiveAfter);
+            long beforeId = SnowflakeIdGenerator.minIdAt(Instant.now().minus(archiveAfter));
+
+            for (Long groupId : chatGroupRepository.findArchivableGroupIds(inactiveSince, beforeId, Limit.of(maxGroupsPerRun))) {
+                archiveGroup(groupId, beforeId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Archiving inactive groups failed, retrying on the next run", e);
+        } finally {
+            try {
+                stringRedisTemplate.execute(RELEASE_LOCK, List.of(LOCK_KEY), owner);
+            } catch (RuntimeException e) {
+                log.warn("Could not release the archive lock", e);
+            }
+        }
+    }
+
+    private void archiveGroup(Long groupId, long beforeId) {
+        long afterId = Long.MIN_VALUE;
+        while (true) {
+            List<ChatMessage> batch = chatMessageRepository.findArchivable(
+                    groupId, afterId, beforeId, Limit.of(segmentMessages));
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<ChatMessageResponse> messages = batch.stream().map(ChatMessageResponse::fromEntity).toList();
+            ArchiveSegment segment;
+            try {
+                segment = writeSegment(groupId, messages);
+            } catch (IOException e) {
+                throw new FileStorageException("Could not write archive segment for group " + groupId, e);
+            }
+
+            List<Long> ids = messages.stream().map(ChatMessageResponse::getId).toList();
+            try {
+                Integer deleted = transactionTemplate.execute(status -> {
+                    int count = 0;
+                    for (int i = 0; i < ids.size(); i += DELETE_CHUNK) {
+                        count += namedParameterJdbcTemplate.update(DELETE_SQL,
+                                Map.of("ids", ids.subList(i, Math.min(ids.size(), i + DELETE_CHUNK))));
+                    }
+                    return count;
+                });
+                archived.increment(deleted != null ? deleted : 0);
+                changed(groupId);
+                log.info("Archived {} messages of group {} into {}", deleted, groupId, segment.path().getFileName());
+            } catch (RuntimeException e) {
+                deleteQuietly(segment.path());
+                changed(groupId);
+                throw e;
+            }
+
+            if (batch.size() < segmentMessages) {
+                return;
+            }
+            afterId = ids.getLast();
+        }
+    }
+
+    private ArchiveSegment writeSegment(Long groupId, List<ChatMessageResponse> messages) throws IOException {
+        Path dir = root.resolve(groupId.toString());
+        Files.createDirectories(dir);
+        String name = messages.getFirst().getId() + "-" + messages.getLast().getId() + "-"
+                + System.currentTimeMillis() + ArchiveSegment.EXTENSION;
+        return ArchiveSegment.write(dir.resolve(name), messages, blockMessages, jsonMapper);
+    }
+
+    private void purgeSender(String username) {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        List<Long> groupIds;
+        try (Stream<Path> dirs = Files.list(root)) {
+            groupIds = dirs.map(dir -> dir.getFileName().toString())
+                    .filter(name -> name.chars().allMatch(Character::isDigit))
+                    .map(Long::valueOf)
+                    .toList();
+        } catch (IOException e) {
+            log.error("Could not list archived groups to remove messages of {}", username, e);
+            return;
+        }
+
+        for (Long groupId : groupIds) {
+            for (ArchiveSegment segment : segments(groupId).oldestFirst()) {
+                if (!segment.senders().contains(username)) {
+                    continue;
+                }
+                try {
+                    List<ChatMessageResponse> kept = segment.readAll(jsonMapper).stream()
+                            .filter(m -> m.getSender() == null || !username.equals(m.getSender().getUsername()))
+                            .toList();
+                    if (!kept.isEmpty()) {
+                        writeSegment(groupId, kept);
+                    }
+                    Files.delete(segment.path());
+                } catch (IOException e) {
+                    log.error("Could not remove archived messages of {} from {}", username, segment.path(), e);
+                } finally {
+                    changed(groupId);
+                }
+            }
+        }
+    }
+
+    /**
+     * The group's segments. The directory is checked for changes at most every
+     * {@code chat.archive.recheckMs}, writes on this node mark it changed right away.
+     */
+    private GroupSegments segments(Long groupId) {
+        GroupSegments cached = groups.get(groupId);
+        long now = System.nanoTime();
+        if (cached != null && cached.modified() != null && now - cached.checkedAt() < recheckNanos) {
+            return cached;
+        }
+
+        Path dir = root.resolve(groupId.toString());
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(dir);
+        } catch (NoSuchFileException e) {
+            GroupSegments empty = new GroupSegments(NO_DIRECTORY, now, List.of(), List.of());
+            groups.put(groupId, empty);
+            return empty;
+        } catch (IOException e) {
+            throw new FileStorageException("Could not read archive of group " + groupId, e);
+        }
+
+        if (cached != null && modified.equals(cached.modified())) {
+            GroupSegments checked = new GroupSegments(modified, now, cached.oldestFirst(), cached.newestFirst());
+            groups.put(groupId, checked);
+            return checked;
+        }
+
+        Map<Path, ArchiveSegment> open = cached == null ? Map.of() : cached.oldestFirst().stream()
+                .collect(Collectors.toMap(ArchiveSegment::path, Function.identity()));
+        List<ArchiveSegment> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(ArchiveSegment.EXTENSION)).toList()) {
+                ArchiveSegment segment = open.get(file);
+                if (segment == null) {
+                    segment = openQuietly(file);
+                }
+                if (segment != null) {
+                    loaded.add(segment);
+                }
+            }
+        } catch (IOException e) {
+            throw new FileStorageException("Could not read archive of group " + groupId, e);
+        }
+
+        GroupSegments segments = new GroupSegments(modified, now,
+                loaded.stream().sorted(Comparator.comparingLong(ArchiveSegment::firstId)).toList(),
+                loaded.stream().sorted(Comparator.comparingLong(ArchiveSegment::lastId).reversed()).toList());
+        groups.put(groupId, segments);
+        return segments;
+    }
+
+    // The next read lists the directory again, whatever its modification time says.
+    private void changed(Long groupId) {
+        groups.computeIfPresent(groupId, (id, cached) ->
+                new GroupSegments(null, 0, cached.oldestFirst(), cached.newestFirst()));
+    }
+
+    // A damaged segment must not hide the rest of the group's history, it is left for inspection.
+    private static ArchiveSegment openQuietly(Path file) {
+        try {
+            return ArchiveSegment.open(file);
+        } catch (IOException e) {
+            log.error("Skipping unreadable archive segment {}", file, e);
+            return null;
+        }
+    }
+
+    private List<ChatMessageResponse> read(ArchiveSegment segment, SegmentRead read) {
+        try {
+            return read.apply(segment);
+        } catch (IOException e) {
+            throw new FileStorageException("Could not read archive segment " + segment.path().getFileName(), e);
+        }
+    }
+
+    // Segments may overlap after an interrupted run, a message is returned once.
+    private static List<ChatMessageResponse> merge(List<ChatMessageResponse> found,
+                                                   Comparator<ChatMessageResponse> order, int limit) {
+        found.sort(order);
+        Map<Long, ChatMessageResponse> unique = new LinkedHashMap<>();
+        for (ChatMessageResponse message : found) {
+            if (unique.size() == limit) {
+                break;
+            }
+            unique.putIfAbsent(message.getId(), message);
+        }
+        return new ArrayList<>(unique.values());
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete archive segment {}", file, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SegmentRead {
+        List<ChatMessageResponse> apply(ArchiveSegment segment) throws IOException;
+    }
+
+    // Segments by first id for reads forward, by last id for reads back. A null modification time
+    // means the directory must be listed again.
+    private record GroupSegments(FileTime modified, long checkedAt,
+                                 List<ArchiveSegment> oldestFirst, List<ArchiveSegment> newestFirst) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.entity.chat.ChatMessage;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface MessageBatchWriter {
+    /**
+     * Queues the message for the next batch insert. The returned future completes
+     * with the persisted message once the batch containing it has been committed.
+     */
+    CompletableFuture<ChatMessage> submit(ChatMessage message);
+}
@@ -0,0 +1,269 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.exception.chat.GroupAccessDeniedException;
+import com.chat.realtimechat.exception.chat.MessageQueueFullException;
+import com.chat.realtimechat.model.entity.chat.ChatMessage;
+import com.chat.realtimechat.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class MessageBatchWriterImpl implements MessageBatchWriter {
+
+    // The membership cache may lag behind a removal, so the insert itself checks that the sender
+    // is still a member of a live group and writes nothing otherwise.
+    private static final String INSERT_MESSAGE_SQL =
+            "INSERT INTO chat_message (id, app_user_id, content, timestamp, chat_group_id, parent_id, type, content_type) " +
+            "SELECT ?, ?, ?, ?, ?, ?, ?, ? " +
+            "WHERE CAST(? AS BIGINT) IS NULL OR EXISTS (" +
+            "SELECT 1 FROM group_members gm JOIN chat_group g ON g.id = gm.group_id " +
+            "WHERE gm.group_id = ? AND gm.user_id = ? AND g.is_deleted = false)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final GroupSummaryUpdater groupSummaryUpdater;
+    private final ReadCursorService readCursorService;
+    private final SnowflakeIdGenerator idGenerator;
+    private final BlockingQueue<PendingMessage> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long enqueueTimeoutMs;
+    private final DistributionSummary batchSizes;
+    private final Timer flushTimer;
+    private final Counter rejectedRows;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public MessageBatchWriterImpl(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            GroupSummaryUpdater groupSummaryUpdater,
+            ReadCursorService readCursorService,
+            SnowflakeIdGenerator idGenerator,
+            MeterRegistry meterRegistry,
+            @Value("${chat.persistence.batchSize:200}") int batchSize,
+            @Value("${chat.persistence.flushIntervalMs:5}") long flushIntervalMs,
+            @Value("${chat.persistence.queueCapacity:10000}") int queueCapacity,
+            @Value("${chat.persistence.enqueueTimeoutMs:50}") long enqueueTimeoutMs
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.groupSummaryUpdater = groupSummaryUpdater;
+        this.readCursorService = readCursorService;
+        this.idGenerator = idGenerator;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+
+        Gauge.builder("chat.persistence.queue.depth", queue, BlockingQueue::size)
+                .description("Messages waiting for the next batch insert")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("chat.persistence.batch.size")
+                .description("Messages written per batch insert")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("chat.persistence.flush.duration")
+                .description("Time spent writing and committing one batch")
+                .register(meterRegistry);
+        this.rejectedRows = Counter.builder("chat.persistence.rejected")
+                .description("Messages the database refused when written on their own")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::runFlushLoop, "chat-message-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Override
+    public CompletableFuture<ChatMessage> submit(ChatMessage message) {
+        if (message.getId() == null) {
+            message.setId(idGenerator.nextId());
+        }
+
+        PendingMessage pending = new PendingMessage(message, new CompletableFuture<>());
+        try {
+            if (!queue.offer(pending, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new MessageQueueFullException("Message queue is full, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessageQueueFullException("Interrupted while queueing message");
+        }
+        return pending.result();
+    }
+
+    private void runFlushLoop() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - batch.size());
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingMessage next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        List<PendingMessage> written;
+        try {
+            int[][] counts = new int[1][];
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> counts[0] = writeBatch(batch)));
+            written = withoutDenied(batch, counts[0]);
+        } catch (DataIntegrityViolationException e) {
+            // One bad row, such as a message to a group deleted meanwhile, rolls back the whole
+            // batch. The rows are written again one by one so only the bad ones fail.
+            log.warn("Batch of {} messages was rejected, writing them one by one", batch.size(), e);
+            written = writeEach(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to persist batch of {} messages", batch.size(), e);
+            batch.forEach(p -> p.result().completeExceptionally(e));
+            return;
+        }
+
+        batchSizes.record(written.size());
+        written.forEach(p -> p.result().complete(p.message()));
+
+        // Only in-memory bookkeeping, flushed by the updaters' own schedules. It runs after the
+        // futures so it never delays the send acknowledgement.
+        for (PendingMessage pending : written) {
+            ChatMessage message = pending.message();
+            groupSummaryUpdater.messagePersisted(message);
+            if (message.getSender() != null) {
+                readCursorService.advanceSilently(
+                        message.getGroup().getId(), message.getSender().getId(), message.getTimestamp());
+            }
+        }
+    }
+
+    private int[] writeBatch(List<PendingMessage> batch) {
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_MESSAGE_SQL, batch, batch.size(),
+                (ps, pending) -> bindMessage(ps, pending.message()));
+        return counts.length == 0 ? new int[0] : counts[0];
+    }
+
+    // A count of 0 means the sender was no longer a member, the others were written. Drivers that
+    // do not report per-row counts return SUCCESS_NO_INFO, which is taken as written.
+    private List<PendingMessage> withoutDenied(List<PendingMessage> batch, int[] counts) {
+        List<PendingMessage> written = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (i < counts.length && counts[i] == 0) {
+                denied(batch.get(i));
+            } else {
+                written.add(batch.get(i));
+            }
+        }
+        return written;
+    }
+
+    private void denied(PendingMessage pending) {
+        pending.result().completeExceptionally(
+                new GroupAccessDeniedException("You are not a member of this group"));
+    }
+
+    // Each row commits on its own, the ones that fail are completed exceptionally.
+    private List<PendingMessage> writeEach(List<PendingMessage> batch) {
+        List<PendingMessage> written = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            try {
+                if (jdbcTemplate.update(INSERT_MESSAGE_SQL, ps -> bindMessage(ps, pending.message())) == 0) {
+                    denied(pending);
+                } else {
+                    written.add(pending);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to persist message {} of group {}",
+                        pending.message().getId(), pending.message().getGroup().getId(), e);
+                rejectedRows.increment();
+                pending.result().completeExceptionally(e);
+            }
+        }
+        return written;
+    }
+
+    private void bindMessage(PreparedStatement ps, ChatMessage message) throws SQLException {
+        ps.setLong(1, message.getId());
+        if (message.getSender() != null) {
+            ps.setLong(2, message.getSender().getId());
+        } else {
+            ps.setNull(2, Types.BIGINT);
+        }
+        ps.setString(3, message.getContent());
+        ps.setObject(4, message.getTimestamp());
+        ps.setLong(5, message.getGroup().getId());
+        if (message.getParent() != null) {
+            ps.setLong(6, message.getParent().getId());
+        } else {
+            ps.setNull(6, Types.BIGINT);
+        }
+        ps.setString(7, message.getType() != null ? message.getType().name() : null);
+        ps.setString(8, message.getContentType() != null ? message.getContentType().name() : null);
+        ps.setLong(10, message.getGroup().getId());
+        if (message.getSender() != null) {
+            ps.setLong(9, message.getSender().getId());
+            ps.setLong(11, message.getSender().getId());
+        } else {
+            ps.setNull(9, Types.BIGINT);
+            ps.setNull(11, Types.BIGINT);
+        }
+    }
+
+    private record PendingMessage(ChatMessage message, CompletableFuture<ChatMessage> result) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.chat.realtimechat.service.chat;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the work that follows a persisted message, fan-out and the Redis updates, off the writer
+ * thread. Each group maps to one single-threaded lane, so its messages are still delivered in the
+ * order the writer persisted them, and a slow Redis or broker call no longer holds up inserts.
+ */
+@Component
+public class MessageDeliveryExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor[] lanes;
+
+    public MessageDeliveryExecutor(
+            @Value("${chat.delivery.lanes:16}") int laneCount,
+            @Value("${chat.delivery.laneQueueCapacity:10000}") int laneQueueCapacity,
+            MeterRegistry meterRegistry
+    ) {
+        this.lanes = new ThreadPoolExecutor[Math.max(laneCount, 1)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(laneQueueCapacity), Thread.ofPlatform().name("chat-delivery-" + i).factory());
+        }
+        Gauge.builder("chat.delivery.queue.depth", this, MessageDeliveryExecutor::queueDepth)
+                .register(meterRegistry);
+    }
+
+    public Executor forGroup(Long groupId) {
+        return lanes[Math.floorMod(Long.hashCode(groupId * 0x9E3779B97F4A7C15L), lanes.length)];
+    }
+
+    @Override
+    public void destroy() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private static double queueDepth(MessageDeliveryExecutor executor) {
+        int depth = 0;
+        for (ThreadPoolExecutor lane : executor.lanes) {
+            depth += lane.getQueue().size();
+        }
+        return depth;
+    }
+}
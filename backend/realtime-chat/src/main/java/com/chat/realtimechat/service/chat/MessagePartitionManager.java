@@ -0,0 +1,9 @@
+package com.chat.realtimechat.service.chat;
+
+public interface MessagePartitionManager {
+    /**
+     * Creates the monthly chat_message partitions for the coming months and detaches the ones
+     * older than the retention window. Does nothing while the table is not partitioned.
+     */
+    void maintainPartitions();
+}
@@ -0,0 +1,155 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.config.SchedulingConfig;
+import com.chat.realtimechat.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * chat_message is range partitioned on the snowflake id, one partition per UTC month. Because ids
+ * are time ordered, keyset history pages and id-bounded queries only touch the partitions of the
+ * months they cover. The table is converted by {@code db/migration/partition_chat_message.sql},
+ * until then this manager stays idle.
+ */
+@Service
+@Slf4j
+public class MessagePartitionManagerImpl implements MessagePartitionManager {
+
+    private static final String PARTITION_PREFIX = "chat_message_y";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy'm'MM");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('?(-?\\d+|MAXVALUE)'?\\)");
+
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'chat_message'::regclass";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    private final Counter created;
+    private final Counter detached;
+
+    private Boolean postgres;
+
+    public MessagePartitionManagerImpl(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${chat.partition.monthsAhead:3}") int monthsAhead,
+            @Value("${chat.partition.retentionMonths:0}") int retentionMonths
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+
+        this.created = Counter.builder("chat.partition.changes")
+                .tag("action", "created")
+                .register(meterRegistry);
+        this.detached = Counter.builder("chat.partition.changes")
+                .tag("action", "detached")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${chat.partition.checkIntervalMs:3600000}", scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER)
+    public void maintainPartitions() {
+        try {
+            if (!isPartitioned()) {
+                return;
+            }
+
+            List<Partition> partitions = jdbcTemplate.query(PARTITIONS_SQL,
+                    (rs, rowNum) -> new Partition(rs.getString(1), upperBoundOf(rs.getString(2))));
+            long coveredUpTo = partitions.stream().mapToLong(Partition::upperBound).max().orElse(Long.MIN_VALUE);
+
+            YearMonth current = YearMonth.now(ZoneOffset.UTC);
+            for (int i = 0; i <= monthsAhead; i++) {
+                coveredUpTo = createPartition(current.plusMonths(i), coveredUpTo);
+            }
+
+            if (retentionMonths > 0) {
+                YearMonth oldestKept = current.minusMonths(retentionMonths);
+                partitions.forEach(partition -> detachIfBefore(partition, oldestKept));
+            }
+        } catch (RuntimeException e) {
+            log.warn("chat_message partition maintenance failed, retrying on the next run", e);
+        }
+    }
+
+    private long createPartition(YearMonth month, long coveredUpTo) {
+        long from = firstIdOf(month);
+        long to = firstIdOf(month.plusMonths(1));
+        if (coveredUpTo >= to) {
+            return coveredUpTo;
+        }
+
+        // The legacy partition from the migration may end inside a month, the remainder starts there.
+        String sql = "CREATE TABLE IF NOT EXISTS " + PARTITION_PREFIX + month.format(PARTITION_MONTH) +
+                " PARTITION OF chat_message FOR VALUES FROM (" + Math.max(from, coveredUpTo) + ") TO (" + to + ")";
+        jdbcTemplate.execute(sql);
+        created.increment();
+        log.info("Created chat_message partition for {}", month);
+        return to;
+    }
+
+    private void detachIfBefore(Partition partition, YearMonth oldestKept) {
+        if (!partition.name().startsWith(PARTITION_PREFIX)) {
+            return;
+        }
+        YearMonth month;
+        try {
+            month = YearMonth.parse(partition.name().substring(PARTITION_PREFIX.length()), PARTITION_MONTH);
+        } catch (DateTimeParseException e) {
+            return;
+        }
+        if (!month.isBefore(oldestKept)) {
+            return;
+        }
+
+        // The detached table is kept, dropping or archiving it is left to operations.
+        jdbcTemplate.execute("ALTER TABLE chat_message DETACH PARTITION " + partition.name() + " CONCURRENTLY");
+        detached.increment();
+        log.info("Detached chat_message partition {}", partition.name());
+    }
+
+    private boolean isPartitioned() {
+        if (postgres == null) {
+            postgres = "PostgreSQL".equals(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass('chat_message') AND relkind = 'p')", Boolean.class));
+    }
+
+    private static long firstIdOf(YearMonth month) {
+        Instant start = month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        return SnowflakeIdGenerator.minIdAt(start);
+    }
+
+    private static long upperBoundOf(String bound) {
+        Matcher matcher = UPPER_BOUND.matcher(bound);
+        if (!matcher.find()) {
+            return Long.MIN_VALUE;
+        }
+        return "MAXVALUE".equals(matcher.group(1)) ? Long.MAX_VALUE : Long.parseLong(matcher.group(1));
+    }
+
+    private record Partition(String name, long upperBound) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.response.CursorPageResponse;
+import com.chat.realtimechat.model.dto.response.MessageSearchResultResponse;
+
+public interface MessageSearchService {
+    /**
+     * Searches the text messages of the user's groups, or of one group when {@code groupId} is set.
+     * Results are ordered by relevance, then newest first, so unlike history pages they are not
+     * chronological.
+     */
+    CursorPageResponse<MessageSearchResultResponse> search(String username, String query, Long groupId,
+                                                           String cursor, int size);
+}
@@ -0,0 +1,228 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.config.SchedulingConfig;
+import com.chat.realtimechat.exception.chat.GroupNotFoundException;
+import com.chat.realtimechat.exception.chat.InvalidSearchQueryException;
+import com.chat.realtimechat.model.dto.response.CursorPageResponse;
+import com.chat.realtimechat.model.dto.response.MessageSearchResultResponse;
+import com.chat.realtimechat.service.users.UserProfile;
+import com.chat.realtimechat.service.users.UserProfileCache;
+import com.chat.realtimechat.util.SearchCursor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Full-text search over {@code chat_message.content_tsv}, a {@code tsvector} kept up to date by a
+ * trigger on insert and update. Hibernate does not manage the column, it is created together with
+ * the trigger, its index and the backfill of older messages by
+ * {@code db/migration/chat_message_search.sql}. The trigger and the remaining backlog are reported
+ * as gauges, a message written while the trigger is missing is not found.
+ * <p>
+ * Only the newest {@code chat.search.maxCandidates} matches are ranked, so a common word costs the
+ * same as a rare one. The cursor keeps that window in place across pages.
+ */
+@Service
+@Slf4j
+public class MessageSearchServiceImpl implements MessageSearchService {
+
+    static final int MAX_SEARCH_PAGE_SIZE = 50;
+    static final int MAX_QUERY_LENGTH = 200;
+
+    // Private use characters, escaped along with the content and then turned into <mark> tags.
+    private static final String MARK_START = "\uE000";
+    private static final String MARK_END = "\uE001";
+    private static final String HEADLINE_OPTIONS =
+            "StartSel=" + MARK_START + ", StopSel=" + MARK_END + ", MaxFragments=2, MaxWords=25, MinWords=8";
+
+    private static final String TRIGGER_SQL =
+            "SELECT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = 'chat_message_content_tsv' " +
+            "AND tgrelid = to_regclass('chat_message') AND tgenabled <> 'D')";
+
+    // Served by the migration's partial backlog index, counted up to a cap.
+    private static final String BACKLOG_SQL =
+            "SELECT count(*) FROM (SELECT 1 FROM chat_message WHERE content_tsv IS NULL " +
+            "AND coalesce(content_type, 'TEXT') IN ('TEXT', 'LINK') LIMIT 100000) b";
+
+    private static final String SEARCH_SQL = """
+            SELECT r.id, r.chat_group_id, r.group_name, r.username, r.timestamp, r.rank, r.window_end,
+                   ts_headline('simple', r.content, websearch_to_tsquery('simple', :query), :headlineOptions) AS highlight
+            FROM (
+                SELECT c.id, c.chat_group_id, c.group_name, u.username, c.timestamp, c.content,
+                       ts_rank(c.content_tsv, websearch_to_tsquery('simple', :query)) AS rank,
+                       max(c.id) OVER () AS window_end
+                FROM (
+                    SELECT m.id, m.chat_group_id, g.name AS group_name, m.app_user_id, m.timestamp,
+                           m.content, m.content_tsv
+                    FROM chat_message m
+                    JOIN group_members gm ON gm.group_id = m.chat_group_id AND gm.user_id = :userId
+                    JOIN chat_group g ON g.id = m.chat_group_id AND g.is_deleted = false
+                    WHERE m.content_tsv @@ websearch_to_tsquery('simple', :query) %s
+                    ORDER BY m.id DESC
+                    LIMIT :maxCandidates
+                ) c
+                LEFT JOIN app_user u ON u.id = c.app_user_id
+            ) r
+            %s
+            ORDER BY r.rank DESC, r.id DESC
+            LIMIT :limit
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final UserProfileCache userProfileCache;
+    private final GroupMembershipCache groupMembershipCache;
+    private final int maxCandidates;
+
+    private final Timer queryTimer;
+    private final AtomicInteger triggerInstalled = new AtomicInteger();
+    private final AtomicLong backlog = new AtomicLong();
+
+    private Boolean postgres;
+
+    public MessageSearchServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+            UserProfileCache userProfileCache,
+            GroupMembershipCache groupMembershipCache,
+            MeterRegistry meterRegistry,
+            @Value("${chat.search.maxCandidates:1000}") int maxCandidates
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.userProfileCache = userProfileCache;
+        this.groupMembershipCache = groupMembershipCache;
+        this.maxCandidates = maxCandidates;
+
+        this.queryTimer = Timer.builder("chat.search.query.duration")
+                .description("Time spent running one search query")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("chat.search.index.trigger", triggerInstalled, AtomicInteger::get)
+                .description("1 while the trigger indexing new and edited messages is installed")
+                .register(meterRegistry);
+        Gauge.builder("chat.search.index.backlog", backlog, AtomicLong::get)
+                .description("Searchable messages not indexed yet, up to 100000")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CursorPageResponse<MessageSearchResultResponse> search(String username, String query, Long groupId,
+                                                                  String cursor, int size) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidSearchQueryException("Search query must not be empty");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new InvalidSearchQueryException("Search query is too long");
+        }
+
+        UserProfile user = userProfileCache.getByUsername(username);
+        if (groupId != null && !groupMembershipCache.getMembers(groupId).containsUser(user.id())) {
+            throw new GroupNotFoundException("Group not found!");
+        }
+
+        int pageSize = Math.clamp(size, 1, MAX_SEARCH_PAGE_SIZE);
+        String normalizedQuery = query.strip();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", normalizedQuery)
+                .addValue("headlineOptions", HEADLINE_OPTIONS)
+                .addValue("userId", user.id())
+                // One extra row tells whether another page exists without a COUNT.
+                .addValue("limit", pageSize + 1);
+
+        params.addValue("maxCandidates", maxCandidates);
+
+        StringBuilder candidateFilter = new StringBuilder();
+        if (groupId != null) {
+            candidateFilter.append("AND m.chat_group_id = :groupId ");
+            params.addValue("groupId", groupId);
+        }
+        String keyset = "";
+        if (cursor != null) {
+            SearchCursor.Position position = SearchCursor.decode(cursor, normalizedQuery, groupId);
+            // Later pages rank the same candidates, newer matches do not push older ones out.
+            candidateFilter.append("AND m.id <= :windowEnd");
+            keyset = "WHERE r.rank < :rank OR (r.rank = :rank AND r.id < :beforeId)";
+            params.addValue("windowEnd", position.windowEnd())
+                    .addValue("rank", position.rank())
+                    .addValue("beforeId", position.messageId());
+        }
+
+        String sql = SEARCH_SQL.formatted(candidateFilter, keyset);
+        List<SearchRow> rows = queryTimer.record(() -> namedParameterJdbcTemplate.query(sql, params, (rs, rowNum) -> new SearchRow(
+                        rs.getLong("id"),
+                        rs.getLong("chat_group_id"),
+                        rs.getString("group_name"),
+                        rs.getString("username"),
+                        rs.getTimestamp("timestamp") != null ? rs.getTimestamp("timestamp").toLocalDateTime() : null,
+                        rs.getFloat("rank"),
+                        rs.getLong("window_end"),
+                        rs.getString("highlight"))));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<MessageSearchResultResponse> items = new ArrayList<>(Math.min(pageSize, rows.size()));
+        for (SearchRow row : rows.subList(0, Math.min(pageSize, rows.size()))) {
+            items.add(new MessageSearchResultResponse(row.id(), row.groupId(), row.groupName(),
+                    row.senderUsername(), row.timestamp(), highlight(row.headline())));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            SearchRow last = rows.get(pageSize - 1);
+            nextCursor = SearchCursor.encode(normalizedQuery, groupId, last.rank(), last.id(), last.windowEnd());
+        }
+        return new CursorPageResponse<>(items, nextCursor, null, hasMore);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.search.monitor.intervalMs:60000}", scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER)
+    public void monitorIndex() {
+        try {
+            if (postgres == null) {
+                postgres = "PostgreSQL".equals(jdbcTemplate.execute(
+                        (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+            }
+            if (!postgres) {
+                return;
+            }
+
+            boolean installed = Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRIGGER_SQL, Boolean.class));
+            triggerInstalled.set(installed ? 1 : 0);
+            if (!installed) {
+                log.warn("Message search trigger is missing, run db/migration/chat_message_search.sql");
+                return;
+            }
+            Long count = jdbcTemplate.queryForObject(BACKLOG_SQL, Long.class);
+            backlog.set(count != null ? count : 0);
+        } catch (RuntimeException e) {
+            log.warn("Could not check the message search index", e);
+        }
+    }
+
+    private static String highlight(String headline) {
+        if (headline == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(headline)
+                .replace(MARK_START, "<mark>")
+                .replace(MARK_END, "</mark>");
+    }
+
+    private record SearchRow(long id, long groupId, String groupName, String senderUsername,
+                             LocalDateTime timestamp, float rank, long windowEnd, String headline) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.enums.RateLimitType;
+
+public interface RateLimiter {
+    /**
+     * Takes one token from the bucket of {@code key}, {@code false} if it is empty.
+     */
+    boolean tryAcquire(RateLimitType type, String key);
+
+    /**
+     * Takes one token from the bucket of {@code key} or throws
+     * {@link com.chat.realtimechat.exception.chat.RateLimitExceededException} with the time until
+     * the next one is available.
+     */
+    void acquire(RateLimitType type, String key);
+
+    /**
+     * Gives back a token taken from the bucket of {@code key}, for a request that was rejected by
+     * a later check and never went through.
+     */
+    void release(RateLimitType type, String key);
+}
@@ -0,0 +1,200 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.exception.chat.RateLimitExceededException;
+import com.chat.realtimechat.model.enums.RateLimitType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets kept as a single number, the time at which the bucket would be full again
+ * (the generic cell rate algorithm). Every token pushes it one interval further, a request is
+ * rejected when it lies more than {@code burst - 1} intervals ahead. In process that number is an
+ * {@link AtomicLong} updated by compare-and-set, so the fast path takes no lock. With
+ * {@code chat.rateLimit.redis.enabled} the same check runs in Redis afterwards to enforce the
+ * limit across nodes.
+ */
+@Service
+@Slf4j
+public class RateLimiterImpl implements RateLimiter {
+
+    private static final String KEY_PREFIX = "chat:ratelimit:";
+
+    // ARGV: interval and tolerance in microseconds, Redis time is used so nodes share one clock.
+    private static final RedisScript<Long> ACQUIRE = new DefaultRedisScript<>(
+            "local time = redis.call('TIME') " +
+            "local now = tonumber(time[1]) * 1000000 + tonumber(time[2]) " +
+            "local tat = math.max(tonumber(redis.call('GET', KEYS[1])) or now, now) " +
+            "if tat - now > tonumber(ARGV[2]) then return tat - now - tonumber(ARGV[2]) end " +
+            "local updated = tat + tonumber(ARGV[1]) " +
+            "redis.call('SET', KEYS[1], string.format('%.0f', updated), 'PX', math.ceil((updated - now) / 1000)) " +
+            "return 0",
+            Long.class);
+
+    // ARGV: interval in microseconds.
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then redis.call('DECRBY', KEYS[1], ARGV[1]) end " +
+            "return 0",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean redisEnabled;
+
+    private final Map<RateLimitType, Limit> limits = new EnumMap<>(RateLimitType.class);
+    private final Map<RateLimitType, Map<String, AtomicLong>> buckets = new EnumMap<>(RateLimitType.class);
+    private final Map<RateLimitType, Counter> localRejections = new EnumMap<>(RateLimitType.class);
+    private final Map<RateLimitType, Counter> globalRejections = new EnumMap<>(RateLimitType.class);
+
+    public RateLimiterImpl(
+            Environment environment,
+            StringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry
+    ) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisEnabled = environment.getProperty("chat.rateLimit.redis.enabled", Boolean.class, false);
+
+        for (RateLimitType type : RateLimitType.values()) {
+            String prefix = "chat.rateLimit." + type.getKey();
+            double perSecond = environment.getProperty(prefix + ".perSecond", Double.class, 0.0);
+            int burst = environment.getProperty(prefix + ".burst", Integer.class, 1);
+            if (perSecond > 0) {
+                limits.put(type, new Limit(perSecond, Math.max(burst, 1)));
+            }
+
+            buckets.put(type, new ConcurrentHashMap<>());
+            localRejections.put(type, rejections(meterRegistry, type, "local"));
+            globalRejections.put(type, rejections(meterRegistry, type, "global"));
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(RateLimitType type, String key) {
+        return delayNanos(type, key) == 0;
+    }
+
+    @Override
+    public void acquire(RateLimitType type, String key) {
+        long delayNanos = delayNanos(type, key);
+        if (delayNanos > 0) {
+            long retryAfterMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(delayNanos));
+            throw new RateLimitExceededException("Too many requests, retry in " + retryAfterMs + " ms", retryAfterMs);
+        }
+    }
+
+    @Override
+    public void release(RateLimitType type, String key) {
+        Limit limit = limits.get(type);
+        if (limit == null) {
+            return;
+        }
+        releaseLocal(type, key, limit);
+        if (redisEnabled) {
+            try {
+                stringRedisTemplate.execute(RELEASE, List.of(redisKey(type, key)), Long.toString(limit.intervalMicros()));
+            } catch (RuntimeException e) {
+                log.warn("Could not release a global {} token for {}", type, key, e);
+            }
+        }
+    }
+
+    // Buckets that have filled up again hold no state worth keeping.
+    @Scheduled(fixedDelayString = "${chat.rateLimit.pruneIntervalMs:60000}")
+    public void prune() {
+        long now = System.nanoTime();
+        buckets.values().forEach(typeBuckets -> typeBuckets.values().removeIf(tat -> tat.get() - now <= 0));
+    }
+
+    // Zero if a token was taken, otherwise how long until the next one.
+    private long delayNanos(RateLimitType type, String key) {
+        Limit limit = limits.get(type);
+        if (limit == null) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        AtomicLong tat = buckets.get(type).computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = tat.get();
+            long start = current - now > 0 ? current : now;
+            if (start - now > limit.toleranceNanos()) {
+                localRejections.get(type).increment();
+                return start - now - limit.toleranceNanos();
+            }
+            if (tat.compareAndSet(current, start + limit.intervalNanos())) {
+                break;
+            }
+        }
+
+        if (!redisEnabled) {
+            return 0;
+        }
+        long globalDelayNanos = globalDelayNanos(type, key, limit);
+        if (globalDelayNanos > 0) {
+            // The request does not go through, so it should not count against the local bucket either.
+            releaseLocal(type, key, limit);
+        }
+        return globalDelayNanos;
+    }
+
+    private void releaseLocal(RateLimitType type, String key, Limit limit) {
+        AtomicLong tat = buckets.get(type).get(key);
+        if (tat != null) {
+            tat.addAndGet(-limit.intervalNanos());
+        }
+    }
+
+    private long globalDelayNanos(RateLimitType type, String key, Limit limit) {
+        try {
+            Long delayMicros = stringRedisTemplate.execute(ACQUIRE,
+                    List.of(redisKey(type, key)),
+                    Long.toString(limit.intervalMicros()), Long.toString(limit.toleranceMicros()));
+            if (delayMicros != null && delayMicros > 0) {
+                globalRejections.get(type).increment();
+                return TimeUnit.MICROSECONDS.toNanos(delayMicros);
+            }
+        } catch (RuntimeException e) {
+            // The local bucket already applied, an unavailable Redis should not stop the chat.
+            log.warn("Could not check the global {} limit for {}", type, key, e);
+        }
+        return 0;
+    }
+
+    private static String redisKey(RateLimitType type, String key) {
+        return KEY_PREFIX + type.getKey() + ":" + key;
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, RateLimitType type, String scope) {
+        return Counter.builder("chat.ratelimit.rejected")
+                .tag("limit", type.getKey())
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    private record Limit(long intervalNanos, long toleranceNanos) {
+        Limit(double perSecond, int burst) {
+            this((long) (TimeUnit.SECONDS.toNanos(1) / perSecond),
+                    (long) (TimeUnit.SECONDS.toNanos(1) / perSecond) * (burst - 1));
+        }
+
+        long intervalMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(intervalNanos);
+        }
+
+        long toleranceMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(toleranceNanos);
+        }
+    }
+}
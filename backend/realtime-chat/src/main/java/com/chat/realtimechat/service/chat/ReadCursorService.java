@@ -0,0 +1,23 @@
+package com.chat.realtimechat.service.chat;
+
+import java.time.LocalDateTime;
+
+public interface ReadCursorService {
+    /**
+     * Moves the member's read cursor to now. The cursor is persisted and announced to the
+     * group in the next batch, together with every other cursor that moved in the meantime.
+     *
+     * @throws com.chat.realtimechat.exception.chat.GroupAccessDeniedException if the user is not a member
+     */
+    void markAsRead(Long groupId, String username);
+
+    /**
+     * Moves the cursor without announcing it, e.g. after the member sent a message.
+     */
+    void advanceSilently(Long groupId, Long userId, LocalDateTime readTime);
+
+    /**
+     * Returns the cursor waiting to be persisted, or {@code null} if the stored one is current.
+     */
+    LocalDateTime pendingCursor(Long groupId, Long userId);
+}
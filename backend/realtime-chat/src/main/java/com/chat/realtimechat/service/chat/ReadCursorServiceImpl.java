@@ -0,0 +1,158 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.exception.chat.GroupAccessDeniedException;
+import com.chat.realtimechat.exception.chat.GroupNotFoundException;
+import com.chat.realtimechat.model.dto.response.ReadCursorResponse;
+import com.chat.realtimechat.model.entity.chat.ChatGroupMemberKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+public class ReadCursorServiceImpl implements ReadCursorService {
+
+    private static final String UPDATE_READ_TIME_SQL =
+            "UPDATE group_members SET last_read_time = ? " +
+            "WHERE group_id = ? AND user_id = ? AND (last_read_time IS NULL OR last_read_time < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final GroupMembershipCache groupMembershipCache;
+    private final GroupFanoutService groupFanoutService;
+    private final UnreadCounterService unreadCounterService;
+
+    private final Map<ChatGroupMemberKey, LocalDateTime> pendingWrites = new ConcurrentHashMap<>();
+    // Only accessed through compute/remove, so the inner maps need no locking of their own.
+    private final Map<Long, Map<Long, ReadCursorResponse>> pendingReceipts = new ConcurrentHashMap<>();
+
+    private final Counter cursorWrites;
+    private final Counter receiptFrames;
+
+    public ReadCursorServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            GroupMembershipCache groupMembershipCache,
+            GroupFanoutService groupFanoutService,
+            UnreadCounterService unreadCounterService,
+            MeterRegistry meterRegistry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.groupMembershipCache = groupMembershipCache;
+        this.groupFanoutService = groupFanoutService;
+        this.unreadCounterService = unreadCounterService;
+
+        this.cursorWrites = Counter.builder("chat.readCursor.writes")
+                .description("Read cursors written to group_members")
+                .register(meterRegistry);
+        this.receiptFrames = Counter.builder("chat.readCursor.receipts")
+                .description("Aggregated read receipt events published to groups")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void markAsRead(Long groupId, String username) {
+        Long userId = groupMembershipCache.getMembers(groupId).userIdOf(username);
+        if (userId == null) {
+            throw new GroupAccessDeniedException("User not in group");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        advanceSilently(groupId, userId, now);
+        unreadCounterService.reset(userId, groupId);
+        pendingReceipts.compute(groupId, (id, cursors) -> {
+            Map<Long, ReadCursorResponse> moved = cursors != null ? cursors : new HashMap<>();
+            moved.put(userId, new ReadCursorResponse(userId, username, now));
+            return moved;
+        });
+    }
+
+    @Override
+    public void advanceSilently(Long groupId, Long userId, LocalDateTime readTime) {
+        pendingWrites.merge(new ChatGroupMemberKey(groupId, userId), readTime, ReadCursorServiceImpl::latest);
+    }
+
+    @Override
+    public LocalDateTime pendingCursor(Long groupId, Long userId) {
+        return pendingWrites.get(new ChatGroupMemberKey(groupId, userId));
+    }
+
+    @Scheduled(fixedDelayString = "${chat.readCursor.flushIntervalMs:1000}")
+    public void flush() {
+        writeCursors();
+        publishReceipts();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        writeCursors();
+    }
+
+    private void writeCursors() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<ChatGroupMemberKey, LocalDateTime>> batch = new ArrayList<>(pendingWrites.size());
+        for (ChatGroupMemberKey key : pendingWrites.keySet()) {
+            LocalDateTime readTime = pendingWrites.remove(key);
+            if (readTime != null) {
+                batch.add(Map.entry(key, readTime));
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPDATE_READ_TIME_SQL, batch, batch.size(), (ps, entry) -> {
+                        ps.setObject(1, entry.getValue());
+                        ps.setLong(2, entry.getKey().getGroupId());
+                        ps.setLong(3, entry.getKey().getUserId());
+                        ps.setObject(4, entry.getValue());
+                    }));
+            cursorWrites.increment(batch.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to persist {} read cursors, retrying on next flush", batch.size(), e);
+            batch.forEach(entry -> pendingWrites.merge(entry.getKey(), entry.getValue(), ReadCursorServiceImpl::latest));
+        }
+    }
+
+    private void publishReceipts() {
+        for (Long groupId : pendingReceipts.keySet()) {
+            Map<Long, ReadCursorResponse> moved = pendingReceipts.remove(groupId);
+            if (moved == null) {
+                continue;
+            }
+
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("type", "READ_RECEIPT");
+            payload.put("groupId", groupId);
+            payload.put("members", List.copyOf(moved.values()));
+
+            try {
+                groupFanoutService.publishToGroup(groupId, groupMembershipCache.getMembers(groupId).usernameList(), payload);
+                receiptFrames.increment();
+            } catch (GroupNotFoundException e) {
+                log.debug("Dropping read receipts for deleted group {}", groupId);
+            } catch (RuntimeException e) {
+                log.warn("Could not publish read receipts for group {}", groupId, e);
+            }
+        }
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,11 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.response.SyncResponse;
+
+public interface SyncService {
+    /**
+     * Returns the messages, group changes and read cursor moves across the user's groups since
+     * {@code cursor}. A {@code null} cursor only hands out a starting cursor.
+     */
+    SyncResponse sync(String username, String cursor, int size);
+}
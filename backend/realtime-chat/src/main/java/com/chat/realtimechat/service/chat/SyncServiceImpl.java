@@ -0,0 +1,167 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.projection.InboxMemberRow;
+import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.dto.response.GroupChangeResponse;
+import com.chat.realtimechat.model.dto.response.ReadCursorResponse;
+import com.chat.realtimechat.model.dto.response.SyncResponse;
+import com.chat.realtimechat.model.entity.chat.ChatMessage;
+import com.chat.realtimechat.model.entity.chat.GroupChangeEvent;
+import com.chat.realtimechat.repository.chat.ChatGroupMemberRepository;
+import com.chat.realtimechat.repository.chat.ChatMessageRepository;
+import com.chat.realtimechat.repository.chat.GroupChangeEventRepository;
+import com.chat.realtimechat.service.users.UserProfileCache;
+import com.chat.realtimechat.util.HistoryCursor;
+import com.chat.realtimechat.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Service
+public class SyncServiceImpl implements SyncService {
+
+    static final int MAX_SYNC_PAGE_SIZE = 500;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final GroupChangeEventRepository groupChangeEventRepository;
+    private final ChatGroupMemberRepository chatGroupMemberRepository;
+    private final GroupChangeLog groupChangeLog;
+    private final MessageArchive messageArchive;
+    private final UnreadCounterService unreadCounterService;
+    private final UserProfileCache userProfileCache;
+    private final Duration settleTime;
+    private final Timer syncTimer;
+
+    public SyncServiceImpl(
+            ChatMessageRepository chatMessageRepository,
+            GroupChangeEventRepository groupChangeEventRepository,
+            ChatGroupMemberRepository chatGroupMemberRepository,
+            GroupChangeLog groupChangeLog,
+            MessageArchive messageArchive,
+            UnreadCounterService unreadCounterService,
+            UserProfileCache userProfileCache,
+            MeterRegistry meterRegistry,
+            @Value("${chat.sync.settleMs:5000}") long settleMs
+    ) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.groupChangeEventRepository = groupChangeEventRepository;
+        this.chatGroupMemberRepository = chatGroupMemberRepository;
+        this.groupChangeLog = groupChangeLog;
+        this.messageArchive = messageArchive;
+        this.unreadCounterService = unreadCounterService;
+        this.userProfileCache = userProfileCache;
+        this.settleTime = Duration.ofMillis(settleMs);
+
+        this.syncTimer = Timer.builder("chat.sync.duration")
+                .description("Time spent building one sync page")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SyncResponse sync(String username, String cursor, int size) {
+        return syncTimer.record(() -> buildPage(userProfileCache.getByUsername(username).id(), cursor, size));
+    }
+
+    private SyncResponse buildPage(Long userId, String cursor, int size) {
+        // Ids are handed out before the row commits (messages go through the batch writer, read
+        // cursors are flushed every second), so only ids older than this are known to be complete.
+        long settledId = SnowflakeIdGenerator.minIdAt(Instant.now().minus(settleTime));
+
+        if (cursor == null || cursor.isBlank()) {
+            return reset(settledId);
+        }
+        long afterId = HistoryCursor.decode(cursor);
+        // Messages below the archive horizon may have left chat_message, the client reloads
+        // history through the history endpoints, which read the archive.
+        if (afterId < groupChangeLog.oldestRetainedId() || afterId < messageArchive.archiveHorizonId()) {
+            return reset(settledId);
+        }
+
+        int pageSize = Math.clamp(size, 1, MAX_SYNC_PAGE_SIZE);
+        List<ChatMessage> messages = findMessagesAfter(userId, afterId, pageSize + 1);
+        List<GroupChangeEvent> events = groupChangeEventRepository.findVisibleAfter(userId, afterId, Limit.of(pageSize + 1));
+
+        // Whatever is newer than the settled id is sent now and again next time, the cursor never
+        // moves past it.
+        long endId = Math.max(afterId, settledId);
+        boolean hasMore = messages.size() + events.size() > pageSize;
+        if (hasMore) {
+            // Both lists are in id order, the page ends at the pageSize-th id of the two combined.
+            long pageEndId = Stream.concat(messages.stream().map(ChatMessage::getId), events.stream().map(GroupChangeEvent::getId))
+                    .mapToLong(Long::longValue)
+                    .sorted()
+                    .skip(pageSize - 1)
+                    .findFirst()
+                    .orElseThrow();
+            messages = messages.stream().filter(m -> m.getId() <= pageEndId).toList();
+            events = events.stream().filter(e -> e.getId() <= pageEndId).toList();
+            if (pageEndId < endId) {
+                endId = pageEndId;
+            } else {
+                // The rest is not settled yet and comes with the next regular sync.
+                hasMore = false;
+            }
+        }
+
+        Set<Long> touchedGroups = new LinkedHashSet<>();
+        messages.forEach(m -> touchedGroups.add(m.getGroup().getId()));
+
+        Map<Long, List<ReadCursorResponse>> readCursors = new HashMap<>();
+        for (InboxMemberRow row : chatGroupMemberRepository.findReadCursorsChanged(userId, timeOf(afterId), timeOf(endId))) {
+            readCursors.computeIfAbsent(row.groupId(), id -> new ArrayList<>())
+                    .add(new ReadCursorResponse(row.userId(), row.username(), row.lastReadTime()));
+            if (row.userId().equals(userId)) {
+                touchedGroups.add(row.groupId());
+            }
+        }
+
+        Map<Long, Long> unreadCounts = touchedGroups.isEmpty()
+                ? Map.of()
+                : unreadCounterService.getUnreadCounts(userId, touchedGroups);
+
+        return new SyncResponse(
+                messages.stream().map(ChatMessageResponse::fromEntity).toList(),
+                events.stream().map(GroupChangeResponse::fromEntity).toList(),
+                readCursors,
+                unreadCounts,
+                HistoryCursor.encode(endId),
+                hasMore,
+                false);
+    }
+
+    /**
+     * The first {@code limit} messages after {@code afterId} across the user's groups, read in one
+     * query ordered by id.
+     */
+    private List<ChatMessage> findMessagesAfter(Long userId, long afterId, int limit) {
+        List<Long> groupIds = chatGroupMemberRepository.findActiveGroupIdsByUserId(userId);
+        if (groupIds.isEmpty()) {
+            return List.of();
+        }
+        return chatMessageRepository.findByGroupIdInAndIdGreaterThanOrderByIdAsc(groupIds, afterId, Limit.of(limit));
+    }
+
+    private static SyncResponse reset(long settledId) {
+        return new SyncResponse(List.of(), List.of(), Map.of(), Map.of(), HistoryCursor.encode(settledId), false, true);
+    }
+
+    private static LocalDateTime timeOf(long id) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(SnowflakeIdGenerator.timestampOf(id)), ZoneId.systemDefault());
+    }
+}
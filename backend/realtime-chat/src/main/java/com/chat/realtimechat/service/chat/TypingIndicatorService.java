@@ -0,0 +1,9 @@
+package com.chat.realtimechat.service.chat;
+
+public interface TypingIndicatorService {
+    /**
+     * Records that the user is typing in the group. Repeated calls only extend the
+     * user's typing state; members are notified by the periodic snapshot, not per call.
+     */
+    void recordTyping(Long groupId, String username);
+}
@@ -0,0 +1,154 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.response.TypingSnapshotResponse;
+import com.chat.realtimechat.model.entity.chat.ChatMessage;
+import com.chat.realtimechat.websocket.backpressure.MessageClass;
+import com.chat.realtimechat.websocket.executor.VirtualThreadChannelExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+@Service
+@Slf4j
+public class TypingIndicatorServiceImpl implements TypingIndicatorService {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Executor clientOutboundExecutor;
+    private final long ttlMs;
+    private final long refreshMs;
+    private final int shedQueueDepth;
+
+    private final Map<Long, GroupTyping> groups = new ConcurrentHashMap<>();
+
+    private final Counter accepted;
+    private final Counter debounced;
+    private final Counter shed;
+    private final Counter snapshots;
+
+    public TypingIndicatorServiceImpl(
+            SimpMessagingTemplate messagingTemplate,
+            @Qualifier("clientOutboundChannelExecutor") Executor clientOutboundExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${chat.typing.ttlMs:3000}") long ttlMs,
+            @Value("${chat.typing.flushIntervalMs:500}") long flushIntervalMs,
+            @Value("${chat.typing.shedQueueDepth:500}") int shedQueueDepth
+    ) {
+        this.messagingTemplate = messagingTemplate;
+        this.clientOutboundExecutor = clientOutboundExecutor;
+        this.ttlMs = ttlMs;
+        // Re-announce users that keep typing shortly before clients would expire them.
+        this.refreshMs = Math.max(flushIntervalMs, ttlMs - 2 * flushIntervalMs);
+        this.shedQueueDepth = shedQueueDepth;
+
+        this.accepted = typingEvents(meterRegistry, "accepted");
+        this.debounced = typingEvents(meterRegistry, "debounced");
+        this.shed = typingEvents(meterRegistry, "shed");
+        this.snapshots = Counter.builder("chat.typing.snapshots")
+                .description("Typing snapshots published to group topics")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void recordTyping(Long groupId, String username) {
+        if (isOverloaded()) {
+            shed.increment();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        boolean[] isNew = new boolean[1];
+        groups.compute(groupId, (id, typing) -> {
+            GroupTyping state = typing != null ? typing : new GroupTyping();
+            Long previous = state.typers.put(username, now);
+            if (previous == null) {
+                state.dirty = true;
+                isNew[0] = true;
+            }
+            return state;
+        });
+
+        if (isNew[0]) {
+            accepted.increment();
+        } else {
+            debounced.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.typing.flushIntervalMs:500}")
+    public void publishSnapshots() {
+        if (groups.isEmpty() || isOverloaded()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (Long groupId : groups.keySet()) {
+            TypingSnapshotResponse[] snapshot = new TypingSnapshotResponse[1];
+            groups.computeIfPresent(groupId, (id, state) -> {
+                // Clients expire typers on their own, so users that stop typing are simply left out.
+                state.typers.values().removeIf(lastSeen -> now - lastSeen >= ttlMs);
+                if (state.typers.isEmpty()) {
+                    return null;
+                }
+
+                if (state.dirty || now - state.lastPublished >= refreshMs) {
+                    snapshot[0] = new TypingSnapshotResponse(
+                            ChatMessage.MessageType.TYPING,
+                            groupId,
+                            List.copyOf(state.typers.keySet()),
+                            LocalDateTime.now()
+                    );
+                    state.dirty = false;
+                    state.lastPublished = now;
+                }
+                return state;
+            });
+
+            if (snapshot[0] != null) {
+                publish(snapshot[0]);
+            }
+        }
+    }
+
+    private void publish(TypingSnapshotResponse snapshot) {
+        try {
+            messagingTemplate.convertAndSend("/topic/group." + snapshot.getGroupId(), snapshot,
+                    Map.of(MessageClass.HEADER, MessageClass.TYPING.name()));
+            snapshots.increment();
+        } catch (RuntimeException e) {
+            log.warn("Could not publish typing snapshot for group {}", snapshot.getGroupId(), e);
+        }
+    }
+
+    private boolean isOverloaded() {
+        return switch (clientOutboundExecutor) {
+            case ThreadPoolTaskExecutor executor -> executor.getQueueSize() >= shedQueueDepth;
+            case VirtualThreadChannelExecutor executor -> executor.getActiveCount() >= shedQueueDepth;
+            default -> false;
+        };
+    }
+
+    private static Counter typingEvents(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("chat.typing.events")
+                .tag("result", result)
+                .description("Typing events received from clients")
+                .register(meterRegistry);
+    }
+
+    private static final class GroupTyping {
+        private final Map<String, Long> typers = new ConcurrentHashMap<>();
+        private boolean dirty;
+        private long lastPublished;
+    }
+}
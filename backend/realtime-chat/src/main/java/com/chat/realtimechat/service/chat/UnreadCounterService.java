@@ -0,0 +1,25 @@
+package com.chat.realtimechat.service.chat;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface UnreadCounterService {
+    /**
+     * Increments the unread counter of every member except the sender. Counters that are
+     * not in Redis yet are left alone and rebuilt from the database on their next read, counters
+     * rebuilt after the message was persisted already include it and are left alone as well.
+     */
+    void messageSent(Long groupId, Long messageId, Long senderId, long[] memberIds);
+
+    void reset(Long userId, Long groupId);
+
+    /**
+     * Returns the unread count of each requested group, rebuilding missing counters in one query.
+     */
+    Map<Long, Long> getUnreadCounts(Long userId, Collection<Long> groupIds);
+
+    /**
+     * Returns the unread count of every active group the user belongs to.
+     */
+    Map<Long, Long> getAllUnreadCounts(Long userId);
+}
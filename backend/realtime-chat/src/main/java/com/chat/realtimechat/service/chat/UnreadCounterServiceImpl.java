@@ -0,0 +1,227 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.projection.UnreadCountRow;
+import com.chat.realtimechat.repository.chat.ChatGroupMemberRepository;
+import com.chat.realtimechat.repository.chat.ChatMessageRepository;
+import com.chat.realtimechat.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Slf4j
+public class UnreadCounterServiceImpl implements UnreadCounterService {
+
+    private static final String KEY_PREFIX = "chat:unread:";
+    // Counters drift if an increment is lost, so whole hashes are periodically rebuilt from the database.
+    private static final Duration TTL = Duration.ofDays(7);
+
+    // Only existing fields are incremented, a missing field means "unknown" and is rebuilt on read.
+    // Message ids and timestamps come from different clocks, the id bound is widened by this much.
+    private static final Duration ID_BOUND_SLACK = Duration.ofMinutes(5);
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    // Ids are compared as decimal strings, Lua numbers are doubles and cannot hold every message id.
+    private static final String ID_ABOVE =
+            "local function above(id, bound) " +
+            "  if #id ~= #bound then return #id > #bound end " +
+            "  return id > bound " +
+            "end ";
+
+    // ARGV: field, message id. While a field is being rebuilt its "~" marker exists and increments
+    // bump the marker instead, so a rebuild can tell whether a message arrived while it was counting.
+    // The "^" field holds the last message id the rebuild counted, increments of messages it already
+    // counted are skipped.
+    private static final RedisScript<Long> INCREMENT_EXISTING = new DefaultRedisScript<>(
+            ID_ABOVE +
+            "for _, key in ipairs(KEYS) do " +
+            "  local counted = redis.call('HGET', key, '^' .. ARGV[1]) " +
+            "  if not counted or above(ARGV[2], counted) then " +
+            "    if redis.call('HEXISTS', key, ARGV[1]) == 1 then redis.call('HINCRBY', key, ARGV[1], 1) " +
+            "    elseif redis.call('HEXISTS', key, '~' .. ARGV[1]) == 1 then redis.call('HINCRBY', key, '~' .. ARGV[1], 1) end " +
+            "  end " +
+            "end " +
+            "return #KEYS",
+            Long.class);
+
+    // ARGV: fields, returns the marker version of each one.
+    private static final RedisScript<List> BEGIN_REBUILD = new DefaultRedisScript<>(
+            "local versions = {} " +
+            "for i, field in ipairs(ARGV) do " +
+            "  redis.call('HSETNX', KEYS[1], '~' .. field, 0) " +
+            "  versions[i] = redis.call('HGET', KEYS[1], '~' .. field) " +
+            "end " +
+            "return versions",
+            List.class);
+
+    // ARGV: field, version, count, last counted message id. A count is only stored if no increment
+    // bumped the marker since the rebuild began, the fields that were bumped are returned to be
+    // counted again.
+    private static final RedisScript<List> COMMIT_REBUILD = new DefaultRedisScript<>(
+            "local stale = {} " +
+            "for i = 1, #ARGV, 4 do " +
+            "  local marker = '~' .. ARGV[i] " +
+            "  if redis.call('HEXISTS', KEYS[1], ARGV[i]) == 1 then redis.call('HDEL', KEYS[1], marker) " +
+            "  elseif redis.call('HGET', KEYS[1], marker) == ARGV[i + 1] then " +
+            "    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 2], '^' .. ARGV[i], ARGV[i + 3]) " +
+            "    redis.call('HDEL', KEYS[1], marker) " +
+            "  else table.insert(stale, ARGV[i]) end " +
+            "end " +
+            "return stale",
+            List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatGroupMemberRepository chatGroupMemberRepository;
+
+    private final Counter hits;
+    private final Counter rebuilds;
+
+    public UnreadCounterServiceImpl(
+            StringRedisTemplate stringRedisTemplate,
+            ChatMessageRepository chatMessageRepository,
+            ChatGroupMemberRepository chatGroupMemberRepository,
+            MeterRegistry meterRegistry
+    ) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatGroupMemberRepository = chatGroupMemberRepository;
+
+        this.hits = Counter.builder("chat.unread.lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.rebuilds = Counter.builder("chat.unread.lookups")
+                .tag("result", "rebuild")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void messageSent(Long groupId, Long messageId, Long senderId, long[] memberIds) {
+        List<String> keys = new ArrayList<>(memberIds.length);
+        for (long memberId : memberIds) {
+            if (memberId != senderId) {
+                keys.add(getKey(memberId));
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        try {
+            stringRedisTemplate.execute(INCREMENT_EXISTING, keys, groupId.toString(), messageId.toString());
+        } catch (RuntimeException e) {
+            // Dropping the fields makes the next read rebuild them instead of serving stale counts.
+            log.warn("Could not increment unread counters for group {}", groupId, e);
+            keys.forEach(key -> stringRedisTemplate.opsForHash().delete(key, groupId.toString(), "~" + groupId, "^" + groupId));
+        }
+    }
+
+    @Override
+    public void reset(Long userId, Long groupId) {
+        String key = getKey(userId);
+        stringRedisTemplate.opsForHash().put(key, groupId.toString(), "0");
+        stringRedisTemplate.expire(key, TTL);
+    }
+
+    @Override
+    public Map<Long, Long> getUnreadCounts(Long userId, Collection<Long> groupIds) {
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        if (groupIds.isEmpty()) {
+            return counts;
+        }
+
+        String key = getKey(userId);
+        List<Object> fields = groupIds.stream().map(id -> (Object) id.toString()).toList();
+        List<Object> cached = stringRedisTemplate.opsForHash().multiGet(key, fields);
+
+        List<Long> missing = new ArrayList<>();
+        int i = 0;
+        for (Long groupId : groupIds) {
+            Object value = cached.get(i++);
+            if (value != null) {
+                counts.put(groupId, Long.parseLong(value.toString()));
+            } else {
+                counts.put(groupId, 0L);
+                missing.add(groupId);
+            }
+        }
+        hits.increment(groupIds.size() - missing.size());
+
+        if (!missing.isEmpty()) {
+            rebuilds.increment(missing.size());
+            rebuild(key, userId, missing, counts);
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<Long, Long> getAllUnreadCounts(Long userId) {
+        return getUnreadCounts(userId, chatGroupMemberRepository.findActiveGroupIdsByUserId(userId));
+    }
+
+    /**
+     * Counts the groups in the database and caches the results, unless a message arrived for a
+     * group while it was being counted. Such groups are counted again, after a few attempts they
+     * are returned uncached and rebuilt on a later read. Each cached count keeps the last message
+     * id it includes, a message that was persisted before the count but is only delivered after it
+     * is not counted twice.
+     */
+    private void rebuild(String key, Long userId, List<Long> groupIds, Map<Long, Long> counts) {
+        List<Long> pending = groupIds;
+        for (int attempt = 0; attempt < MAX_REBUILD_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            List<String> fields = pending.stream().map(Object::toString).toList();
+            List<String> versions = stringRedisTemplate.execute(BEGIN_REBUILD, List.of(key), fields.toArray());
+
+            Map<Long, Long> countedUpTo = new HashMap<>();
+            pending.forEach(groupId -> counts.put(groupId, 0L));
+            for (UnreadCountRow row : chatMessageRepository.countUnreadMessagesByGroup(
+                    userId, pending, unreadSinceId(userId, pending), SnowflakeIdGenerator.LEGACY_ID_CEILING)) {
+                counts.put(row.groupId(), row.unreadCount());
+                countedUpTo.put(row.groupId(), row.lastMessageId());
+            }
+
+            List<String> args = new ArrayList<>(fields.size() * 4);
+            for (int i = 0; i < fields.size(); i++) {
+                args.add(fields.get(i));
+                args.add(versions.get(i));
+                args.add(counts.get(pending.get(i)).toString());
+                args.add(countedUpTo.getOrDefault(pending.get(i), 0L).toString());
+            }
+            List<String> stale = stringRedisTemplate.execute(COMMIT_REBUILD, List.of(key), args.toArray());
+            pending = stale.stream().map(Long::valueOf).toList();
+        }
+        stringRedisTemplate.expire(key, TTL);
+    }
+
+    /**
+     * Lowest message id that can be unread in any of the groups. It lets the count skip
+     * chat_message partitions that lie entirely before the oldest read cursor.
+     */
+    private long unreadSinceId(Long userId, Collection<Long> groupIds) {
+        LocalDateTime oldestRead = chatGroupMemberRepository.findOldestReadTime(userId, groupIds);
+        if (oldestRead == null) {
+            return 0L;
+        }
+        Instant since = oldestRead.atZone(ZoneId.systemDefault()).toInstant().minus(ID_BOUND_SLACK);
+        return SnowflakeIdGenerator.minIdAt(since);
+    }
+
+    private String getKey(long userId) {
+        return KEY_PREFIX + userId;
+    }
+}
@@ -0,0 +1,7 @@
+package com.chat.realtimechat.service.chat;
+
+/**
+ * An event recorded in a user's stream, {@code payload} is the encoded frame body as it was sent.
+ */
+public record UserEvent(String id, String destination, byte[] payload) {
+}
@@ -0,0 +1,25 @@
+package com.chat.realtimechat.service.chat;
+
+import java.util.List;
+
+/**
+ * A capped, per-user log of the frames sent to the user's own destinations, so a client that
+ * reconnects can be sent what it missed. Clients learn event ids from the {@link #EVENT_ID_HEADER}
+ * of every recorded frame and present the last one in the {@link #LAST_EVENT_ID_HEADER} of CONNECT.
+ */
+public interface UserEventStream {
+
+    String EVENT_ID_HEADER = "event-id";
+    String LAST_EVENT_ID_HEADER = "last-event-id";
+
+    /**
+     * Records one event per user and returns their ids in the same order. If the stream cannot be
+     * written the list holds {@code null}s and the frames are sent without an id.
+     */
+    List<String> append(List<String> usernames, String destination, byte[] payload);
+
+    /**
+     * Events after {@code lastEventId} sent to {@code destination}, oldest first.
+     */
+    List<UserEvent> readAfter(String username, String lastEventId, String destination);
+}
@@ -0,0 +1,134 @@
+package com.chat.realtimechat.service.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Slf4j
+public class UserEventStreamImpl implements UserEventStream {
+
+    private static final String KEY_PREFIX = "chat:events:";
+    private static final String DESTINATION_FIELD = "d";
+    private static final String PAYLOAD_FIELD = "p";
+
+    // KEYS: user streams. ARGV: max length, ttl ms, destination, payload. Returns the new ids.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> APPEND = new DefaultRedisScript<>(
+            "local ids = {} " +
+            "for i, key in ipairs(KEYS) do " +
+            "  ids[i] = redis.call('XADD', key, 'MAXLEN', '~', ARGV[1], '*', 'd', ARGV[3], 'p', ARGV[4]) " +
+            "  redis.call('PEXPIRE', key, ARGV[2]) " +
+            "end " +
+            "return ids",
+            List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long maxLength;
+    private final long ttlMs;
+    private final int maxReplay;
+
+    private final DistributionSummary replaySizes;
+    private final Counter truncatedReplays;
+
+    public UserEventStreamImpl(
+            StringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${chat.events.stream.maxLength:1000}") long maxLength,
+            @Value("${chat.events.stream.ttlMs:86400000}") long ttlMs,
+            @Value("${chat.events.replay.maxEvents:1000}") int maxReplay
+    ) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.maxLength = maxLength;
+        this.ttlMs = ttlMs;
+        this.maxReplay = maxReplay;
+
+        this.replaySizes = DistributionSummary.builder("chat.events.replay.size")
+                .description("Events replayed to a reconnecting subscription")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.truncatedReplays = Counter.builder("chat.events.replay.truncated")
+                .description("Replays that could not cover everything since the client's last event")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> append(List<String> usernames, String destination, byte[] payload) {
+        if (usernames.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> keys = usernames.stream().map(UserEventStreamImpl::getKey).toList();
+        try {
+            List<String> ids = stringRedisTemplate.execute(APPEND, keys, String.valueOf(maxLength),
+                    String.valueOf(ttlMs), destination, new String(payload, StandardCharsets.UTF_8));
+            if (ids != null && ids.size() == usernames.size()) {
+                return ids;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not record events for {} users, sending them without ids", usernames.size(), e);
+        }
+        return Collections.nCopies(usernames.size(), null);
+    }
+
+    @Override
+    public List<UserEvent> readAfter(String username, String lastEventId, String destination) {
+        String key = getKey(username);
+        List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream().range(key,
+                Range.of(Range.Bound.exclusive(lastEventId), Range.Bound.unbounded()),
+                Limit.limit().count(maxReplay));
+        if (records == null) {
+            records = List.of();
+        }
+
+        if (records.size() == maxReplay || isTrimmedAfter(key, RecordId.of(lastEventId))) {
+            truncatedReplays.increment();
+        }
+
+        List<UserEvent> events = new ArrayList<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            Map<Object, Object> fields = record.getValue();
+            if (destination.equals(fields.get(DESTINATION_FIELD))) {
+                events.add(new UserEvent(record.getId().getValue(), destination,
+                        fields.get(PAYLOAD_FIELD).toString().getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+        replaySizes.record(events.size());
+        return events;
+    }
+
+    // Whether events after lastEventId may have been trimmed or expired. The oldest retained id
+    // being newer than lastEventId is treated as a gap, streams do not record what was trimmed.
+    private boolean isTrimmedAfter(String key, RecordId lastEventId) {
+        List<MapRecord<String, Object, Object>> oldest = stringRedisTemplate.opsForStream().range(key,
+                Range.unbounded(), Limit.limit().count(1));
+        if (oldest == null || oldest.isEmpty()) {
+            return lastEventId.getTimestamp() < System.currentTimeMillis() - ttlMs;
+        }
+
+        RecordId first = oldest.getFirst().getId();
+        return first.getTimestamp() > lastEventId.getTimestamp()
+                || (first.getTimestamp().equals(lastEventId.getTimestamp()) && first.getSequence() > lastEventId.getSequence());
+    }
+
+    private static String getKey(String username) {
+        return KEY_PREFIX + username;
+    }
+}
@@ -4,10 +4,10 @@ import com.chat.realtimechat.model.dto.response.OnlineInfoResponse;
 import com.chat.realtimechat.model.entity.users.User;
 import com.chat.realtimechat.model.enums.UserStatus;
 import com.chat.realtimechat.repository.users.FriendshipRepository;
-import com.chat.realtimechat.repository.users.UserRepository;
+import com.chat.realtimechat.service.users.UserProfile;
+import com.chat.realtimechat.service.users.UserProfileCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
@@ -22,7 +22,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserPresenceServiceImpl implements UserPresenceService {
     
-    private final UserRepository userRepository;
+    private final UserProfileCache userProfileCache;
     private final FriendshipRepository friendshipRepository;
     private final RedisTemplate<String, OnlineInfoResponse> redisTemplate;
     
@@ -64,13 +64,13 @@ public class UserPresenceServiceImpl implements UserPresenceService {
             existing.setStatus(status);
             redisTemplate.opsForValue().set(key, existing, TTL);
         } else {
-            userRepository.findByUsername(username).ifPresent(user ->
-                    redisTemplate.opsForValue().set(key, new OnlineInfoResponse(
-                            user.getName(),
-                            user.getSurname(),
-                            user.getUsername(),
-                            status
-                    ), TTL));
+            UserProfile user = userProfileCache.getByUsername(username);
+            redisTemplate.opsForValue().set(key, new OnlineInfoResponse(
+                    user.name(),
+                    user.surname(),
+                    user.username(),
+                    status
+            ), TTL);
         }
     }
 
@@ -81,10 +81,9 @@ public class UserPresenceServiceImpl implements UserPresenceService {
 
     @Override
     public Map<String, OnlineInfoResponse> getOnlineUsers(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException(username));
+        UserProfile user = userProfileCache.getByUsername(username);
 
-        List<User> friends = friendshipRepository.findFriendsByUserId(user.getId());
+        List<User> friends = friendshipRepository.findFriendsByUserId(user.id());
         
         if (friends.isEmpty()) {
             OnlineInfoResponse self = getOnlineUser(username);
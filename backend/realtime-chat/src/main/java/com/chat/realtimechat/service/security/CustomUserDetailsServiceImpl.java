@@ -2,6 +2,8 @@ package com.chat.realtimechat.service.security;
 
 import com.chat.realtimechat.model.entity.users.User;
 import com.chat.realtimechat.repository.users.UserRepository;
+import com.chat.realtimechat.service.users.UserProfile;
+import com.chat.realtimechat.service.users.UserProfileCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -12,6 +14,7 @@ import org.springframework.stereotype.Service;
 public class CustomUserDetailsServiceImpl implements CustomUserDetailsService {
 
     private final UserRepository repo;
+    private final UserProfileCache userProfileCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -24,12 +27,19 @@ public class CustomUserDetailsServiceImpl implements CustomUserDetailsService {
                 .build();
     }
 
+    /**
+     * Used for token authentication on every request and STOMP CONNECT, so it is served
+     * from the profile cache and carries no password. Both callers have already checked a JWT
+     * and build an authentication with null credentials, the details never reach a password
+     * check. The empty password could not pass one anyway: the BCrypt encoder never matches an
+     * empty hash, and the login flow loads users through {@link #loadUserByUsername}.
+     */
     @Override
     public UserDetails loadUserById(Long id) {
-        User user = repo.findById(id).orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        UserProfile profile = userProfileCache.getById(id);
 
-        return org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
-                .password(user.getPassword())
+        return org.springframework.security.core.userdetails.User.withUsername(profile.username())
+                .password("")
                 .roles("USER")
                 .build();
     }
@@ -0,0 +1,17 @@
+package com.chat.realtimechat.service.users;
+
+import com.chat.realtimechat.model.entity.users.User;
+
+/**
+ * Identity and display fields of a user, as kept by {@link UserProfileCache}.
+ */
+public record UserProfile(
+        Long id,
+        String username,
+        String name,
+        String surname
+) {
+    public static UserProfile fromEntity(User user) {
+        return new UserProfile(user.getId(), user.getUsername(), user.getName(), user.getSurname());
+    }
+}
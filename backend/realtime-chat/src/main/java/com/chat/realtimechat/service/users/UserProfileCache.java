@@ -0,0 +1,18 @@
+package com.chat.realtimechat.service.users;
+
+public interface UserProfileCache {
+    /**
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException if the user does not exist
+     */
+    UserProfile getById(Long id);
+
+    /**
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException if the user does not exist
+     */
+    UserProfile getByUsername(String username);
+
+    /**
+     * Evicts the user on this node and, once the current transaction commits, on every other node.
+     */
+    void invalidate(Long userId);
+}
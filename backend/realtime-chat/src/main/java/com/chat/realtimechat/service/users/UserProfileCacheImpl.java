@@ -0,0 +1,97 @@
+package com.chat.realtimechat.service.users;
+
+import com.chat.realtimechat.repository.users.UserRepository;
+import com.chat.realtimechat.util.InvalidatingLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class UserProfileCacheImpl implements UserProfileCache {
+
+    private static final String INVALIDATION_CHANNEL = "chat:cache:user-profiles";
+
+    private final UserRepository userRepository;
+    private final InvalidatingLruCache<Long, UserProfile> profilesById;
+    // Follows profilesById, entries are added and removed under its lock.
+    private final Map<String, Long> idsByUsername = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserProfileCacheImpl(
+            UserRepository userRepository,
+            StringRedisTemplate stringRedisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            MeterRegistry meterRegistry,
+            @Value("${chat.cache.userProfile.maxUsers:50000}") int maxUsers,
+            @Value("${chat.cache.userProfile.ttlMs:60000}") long ttlMs
+    ) {
+        this.userRepository = userRepository;
+        this.profilesById = new InvalidatingLruCache<>(INVALIDATION_CHANNEL, Long::valueOf, maxUsers,
+                Duration.ofMillis(ttlMs), stringRedisTemplate, listenerContainer,
+                profile -> idsByUsername.put(profile.username(), profile.id()),
+                profile -> idsByUsername.remove(profile.username(), profile.id()));
+
+        this.hits = Counter.builder("chat.cache.userProfile.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("chat.cache.userProfile.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribeToInvalidations() {
+        profilesById.subscribeToInvalidations();
+    }
+
+    @Override
+    public UserProfile getById(Long id) {
+        UserProfile cached = profilesById.get(id);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        long loadGeneration = profilesById.generation();
+        UserProfile loaded = userRepository.findById(id)
+                .map(UserProfile::fromEntity)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        profilesById.put(loaded.id(), loaded, loadGeneration);
+        return loaded;
+    }
+
+    @Override
+    public UserProfile getByUsername(String username) {
+        Long id = idsByUsername.get(username);
+        UserProfile cached = id != null ? profilesById.get(id) : null;
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        long loadGeneration = profilesById.generation();
+        UserProfile loaded = userRepository.findByUsername(username)
+                .map(UserProfile::fromEntity)
+                .orElseThrow(() -> new UsernameNotFoundException(username));
+        profilesById.put(loaded.id(), loaded, loadGeneration);
+        return loaded;
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        profilesById.invalidate(userId);
+    }
+}
@@ -19,6 +19,9 @@ import com.chat.realtimechat.model.dto.request.UpdateUserRequest;
 import com.chat.realtimechat.repository.security.RefreshTokenRepository;
 import com.chat.realtimechat.repository.users.FriendshipRepository;
 import com.chat.realtimechat.repository.users.UserRepository;
+import com.chat.realtimechat.service.chat.GroupMembershipCache;
+import com.chat.realtimechat.service.chat.HotHistoryCache;
+import com.chat.realtimechat.service.chat.MessageArchive;
 import com.chat.realtimechat.service.security.PasswordResetTokenService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -48,6 +51,10 @@ public class UserServiceImpl implements UserService {
     private final ChatMessageRepository chatMessageRepository;
     private final FriendshipRepository friendshipRepository;
     private final ChatGroupMemberRepository chatGroupMemberRepository;
+    private final GroupMembershipCache groupMembershipCache;
+    private final UserProfileCache userProfileCache;
+    private final HotHistoryCache hotHistoryCache;
+    private final MessageArchive messageArchive;
 
     @Override
     public Iterable<User> findAllUsers() {
@@ -117,7 +124,9 @@ public class UserServiceImpl implements UserService {
         friendshipRepository.deleteByUser(user);
         friendshipRepository.deleteByFriend(user);
 
+        List<Long> memberGroupIds = chatGroupMemberRepository.findGroupIdsByUser(user);
         chatGroupMemberRepository.deleteByUser(user);
+        groupMembershipCache.invalidate(memberGroupIds);
 
         List<ChatGroup> adminGroups = chatGroupRepository.findByAdminsContains(user);
         for (ChatGroup group : adminGroups) {
@@ -125,7 +134,9 @@ public class UserServiceImpl implements UserService {
             chatGroupRepository.save(group);
         }
 
+        hotHistoryCache.evict(chatMessageRepository.findGroupIdsBySender(user));
         chatMessageRepository.deleteAllBySender(user);
+        messageArchive.removeSender(user.getUsername());
 
         if(!user.getProviderId().isEmpty()){
             googleRefreshTokenRepository.deleteByUser(user);
@@ -133,6 +144,7 @@ public class UserServiceImpl implements UserService {
 
         refreshTokenRepository.deleteAllByUser(user);
         userRepository.delete(user);
+        userProfileCache.invalidate(user.getId());
     }
 
     @Override
@@ -216,7 +228,9 @@ public class UserServiceImpl implements UserService {
         if (request.getPassword() != null && !request.getPassword().equals(user.getPassword())) {
             user.setPassword(passwordEncoder.encode(request.getPassword()));
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userProfileCache.invalidate(saved.getId());
+        return saved;
     }
 
     @Override
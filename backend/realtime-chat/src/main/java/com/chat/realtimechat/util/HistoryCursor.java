@@ -0,0 +1,38 @@
+package com.chat.realtimechat.util;
+
+import com.chat.realtimechat.exception.chat.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Opaque pagination cursor pointing at a message id. Clients must pass cursors back unchanged,
+ * the version byte leaves room for changing what the cursor encodes.
+ */
+public final class HistoryCursor {
+
+    private static final byte VERSION = 1;
+    private static final int LENGTH = 1 + Long.BYTES;
+
+    private HistoryCursor() {
+    }
+
+    public static String encode(long messageId) {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH).put(VERSION).putLong(messageId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static long decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed history cursor");
+        }
+
+        if (bytes.length != LENGTH || bytes[0] != VERSION) {
+            throw new InvalidCursorException("Malformed history cursor");
+        }
+        return ByteBuffer.wrap(bytes, 1, Long.BYTES).getLong();
+    }
+}
@@ -0,0 +1,180 @@
+package com.chat.realtimechat.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A bounded, least recently used cache of values loaded from the database, kept in step across
+ * nodes by invalidations published on a Redis channel. Pub/sub delivers at most once, a node that
+ * is reconnecting misses what was published meanwhile, so every entry also expires a fixed time
+ * after it was loaded and a missed invalidation is stale for at most that long.
+ */
+@Slf4j
+public class InvalidatingLruCache<K, V> {
+
+    private final String channel;
+    private final Function<String, K> keyParser;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long ttlNanos;
+    private final Consumer<V> onAdd;
+    private final Consumer<V> onRemove;
+
+    private final Map<K, Entry<V>> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Bumped on every eviction so that a load racing with an invalidation is not cached.
+    private final AtomicLong generation = new AtomicLong();
+
+    public InvalidatingLruCache(String channel, Function<String, K> keyParser, int maxSize, Duration ttl,
+                                StringRedisTemplate stringRedisTemplate,
+                                RedisMessageListenerContainer listenerContainer) {
+        this(channel, keyParser, maxSize, ttl, stringRedisTemplate, listenerContainer, value -> {
+        }, value -> {
+        });
+    }
+
+    /**
+     * @param onAdd    called under the cache's lock with every value that is cached, and
+     * @param onRemove with every value that leaves it, for callers that keep a secondary index
+     */
+    public InvalidatingLruCache(String channel, Function<String, K> keyParser, int maxSize, Duration ttl,
+                                StringRedisTemplate stringRedisTemplate,
+                                RedisMessageListenerContainer listenerContainer,
+                                Consumer<V> onAdd, Consumer<V> onRemove) {
+        this.channel = channel;
+        this.keyParser = keyParser;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.ttlNanos = ttl.toNanos();
+        this.onAdd = onAdd;
+        this.onRemove = onRemove;
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > maxSize) {
+                    onRemove.accept(eldest.getValue().value());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public void subscribeToInvalidations() {
+        listenerContainer.addMessageListener(
+                (message, pattern) -> evictLocal(keyParser.apply(new String(message.getBody(), StandardCharsets.UTF_8))),
+                new ChannelTopic(channel));
+    }
+
+    /**
+     * The cached value, {@code null} if there is none or it has expired.
+     */
+    public V get(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.loadedAt() > ttlNanos) {
+                entries.remove(key);
+                onRemove.accept(entry.value());
+                return null;
+            }
+            return entry.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * To be read before loading a value and handed to {@link #put}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches a loaded value unless something was evicted since {@code loadGeneration} was read.
+     */
+    public void put(K key, V value, long loadGeneration) {
+        lock.lock();
+        try {
+            if (generation.get() == loadGeneration) {
+                Entry<V> replaced = entries.put(key, new Entry<>(value, System.nanoTime()));
+                if (replaced != null) {
+                    onRemove.accept(replaced.value());
+                }
+                onAdd.accept(value);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts the key on this node and, once the current transaction commits, on every other node.
+     */
+    public void invalidate(K key) {
+        evictLocal(key);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictLocal(key);
+                    publishInvalidation(key);
+                }
+            });
+        } else {
+            publishInvalidation(key);
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictLocal(K key) {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            Entry<V> removed = entries.remove(key);
+            if (removed != null) {
+                onRemove.accept(removed.value());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void publishInvalidation(K key) {
+        try {
+            stringRedisTemplate.convertAndSend(channel, key.toString());
+        } catch (RuntimeException e) {
+            log.warn("Could not publish invalidation of {} on {}", key, channel, e);
+        }
+    }
+
+    private record Entry<V>(V value, long loadedAt) {
+    }
+}
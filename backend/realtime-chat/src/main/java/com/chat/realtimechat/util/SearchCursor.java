@@ -0,0 +1,67 @@
+package com.chat.realtimechat.util;
+
+import com.chat.realtimechat.exception.chat.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Opaque cursor into ranked search results, pointing at the rank and id of the last returned
+ * message and at the newest id of the candidates that were ranked. Ranks are Postgres
+ * {@code real} values and round-trip exactly as floats. The cursor also carries a hash of the
+ * query and group it was issued for, a rank only means something within the same result set.
+ */
+public final class SearchCursor {
+
+    private static final byte VERSION = 3;
+    private static final int LENGTH = 1 + Long.BYTES + Float.BYTES + Long.BYTES + Long.BYTES;
+
+    private SearchCursor() {
+    }
+
+    public record Position(float rank, long messageId, long windowEnd) {
+    }
+
+    public static String encode(String query, Long groupId, float rank, long messageId, long windowEnd) {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH)
+                .put(VERSION)
+                .putLong(scope(query, groupId))
+                .putFloat(rank)
+                .putLong(messageId)
+                .putLong(windowEnd);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static Position decode(String cursor, String query, Long groupId) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed search cursor");
+        }
+
+        if (bytes.length != LENGTH || bytes[0] != VERSION) {
+            throw new InvalidCursorException("Malformed search cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, LENGTH - 1);
+        if (buffer.getLong() != scope(query, groupId)) {
+            throw new InvalidCursorException("Search cursor belongs to a different query");
+        }
+        return new Position(buffer.getFloat(), buffer.getLong(), buffer.getLong());
+    }
+
+    private static long scope(String query, Long groupId) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((groupId != null ? groupId.toString() : "").getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(query.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest.digest()).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.chat.realtimechat.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates 64-bit, time-ordered ids: 41 bits of milliseconds since {@link #EPOCH},
+ * 10 bits of node id and 12 bits of per-millisecond sequence. Ids are strictly
+ * increasing per node, also when the wall clock steps backwards.
+ */
+public class SnowflakeIdGenerator {
+
+    public static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    /**
+     * Ids below this were not issued by the generator. Messages written before snowflake ids were
+     * introduced keep their small sequence ids, which would otherwise decode to the first day of
+     * {@link #EPOCH}.
+     */
+    public static final long LEGACY_ID_CEILING = minIdAt(Instant.ofEpochMilli(EPOCH).plus(Duration.ofDays(1)));
+
+    private final long nodeId;
+
+    // (millis since EPOCH << SEQUENCE_BITS) | sequence of the last issued id
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    public long nextId() {
+        long now = System.currentTimeMillis() - EPOCH;
+
+        while (true) {
+            long previous = lastState.get();
+            // A sequence overflow carries into the timestamp, borrowing the next millisecond.
+            long next = now > (previous >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : previous + 1;
+
+            if (lastState.compareAndSet(previous, next)) {
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT)
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    public static int nodeIdOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+
+    /**
+     * Smallest id that can be issued at the given instant, usable as an exclusive
+     * lower bound when querying by time.
+     */
+    public static long minIdAt(Instant instant) {
+        return Math.max(0, instant.toEpochMilli() - EPOCH) << TIMESTAMP_SHIFT;
+    }
+}
@@ -0,0 +1,49 @@
+package com.chat.realtimechat.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Application destinations of client frames that are routed or limited before they reach a handler.
+ */
+@Slf4j
+public final class InboundDestinations {
+
+    public static final String SEND_MESSAGE = "/app/chat.sendMessage";
+    public static final String TYPING_PREFIX = "/app/chat.typing/";
+    public static final String SET_STATUS = "/app/user/setStatus";
+
+    private static final String GROUP_ID_FIELD = "groupId";
+
+    private InboundDestinations() {
+    }
+
+    /**
+     * Reads only the top-level groupId field of a chat message body, the handler binds the full
+     * request later. {@code null} if the body has none.
+     */
+    public static Long readGroupId(byte[] body) {
+        try (JsonParser parser = JsonMapper.shared().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (GROUP_ID_FIELD.equals(field)) {
+                    return switch (value) {
+                        case VALUE_NUMBER_INT -> parser.getLongValue();
+                        case VALUE_STRING -> Long.valueOf(parser.getString());
+                        default -> null;
+                    };
+                }
+                parser.skipChildren();
+            }
+        } catch (RuntimeException e) {
+            log.debug("Could not read the group of an inbound message", e);
+        }
+        return null;
+    }
+}
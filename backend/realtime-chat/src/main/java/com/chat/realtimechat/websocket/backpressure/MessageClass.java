@@ -0,0 +1,40 @@
+package com.chat.realtimechat.websocket.backpressure;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+
+/**
+ * How expendable an outbound frame is when a session falls behind. Typing and presence frames are
+ * superseded by the next one and can be dropped, everything else has to arrive.
+ */
+public enum MessageClass {
+    TYPING,
+    PRESENCE,
+    EVENT;
+
+    /**
+     * Native header a publisher can set to classify frames whose destination does not tell.
+     */
+    public static final String HEADER = "chat-class";
+
+    static MessageClass of(Message<?> message) {
+        String declared = SimpMessageHeaderAccessor.getFirstNativeHeader(HEADER, message.getHeaders());
+        if (declared != null) {
+            for (MessageClass messageClass : values()) {
+                if (messageClass.name().equals(declared)) {
+                    return messageClass;
+                }
+            }
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination != null && (destination.equals("/topic/public") || destination.endsWith("/queue/friends-status"))) {
+            return PRESENCE;
+        }
+        return EVENT;
+    }
+
+    boolean isDroppable() {
+        return this != EVENT;
+    }
+}
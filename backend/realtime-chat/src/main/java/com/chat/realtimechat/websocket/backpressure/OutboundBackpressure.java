@@ -0,0 +1,180 @@
+package com.chat.realtimechat.websocket.backpressure;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the frames queued for each session. A frame counts as pending from the moment it enters
+ * the client outbound channel until the channel's handler has passed it to the session, both ends
+ * are counted here on the channel: a frame is released once it was handled, or right away when it
+ * never reached the executor. Frames the session buffers behind a slow write are bounded by the
+ * transport's send buffer and time limits. Once a session has more pending frames than the limit of
+ * a frame's class, typing and presence frames are dropped and any other frame closes the session,
+ * the client then reconnects and catches up through replay and sync.
+ */
+@Component
+@Slf4j
+public class OutboundBackpressure implements ExecutorChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final Map<MessageClass, Integer> limits = new EnumMap<>(MessageClass.class);
+    private final Map<MessageClass, Counter> dropped = new EnumMap<>(MessageClass.class);
+
+    private final DistributionSummary pendingDepth;
+    private final Counter evictions;
+
+    public OutboundBackpressure(
+            MeterRegistry meterRegistry,
+            @Value("${chat.websocket.outbound.limit.typing:32}") int typingLimit,
+            @Value("${chat.websocket.outbound.limit.presence:128}") int presenceLimit,
+            @Value("${chat.websocket.outbound.limit.event:1000}") int eventLimit
+    ) {
+        limits.put(MessageClass.TYPING, typingLimit);
+        limits.put(MessageClass.PRESENCE, presenceLimit);
+        limits.put(MessageClass.EVENT, eventLimit);
+
+        for (MessageClass messageClass : MessageClass.values()) {
+            dropped.put(messageClass, Counter.builder("chat.websocket.frames.dropped")
+                    .tag("class", messageClass.name().toLowerCase())
+                    .description("Outbound frames dropped because the session was too far behind")
+                    .register(meterRegistry));
+        }
+        this.pendingDepth = DistributionSummary.builder("chat.websocket.session.pending")
+                .description("Frames pending for a session when another one is queued")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.evictions = Counter.builder("chat.websocket.sessions.evicted")
+                .description("Sessions closed for not keeping up with their outbound frames")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.session.pending.max", sessions, OutboundBackpressure::maxPending)
+                .description("Most frames pending for any one session")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+        if (state == null) {
+            return message;
+        }
+
+        MessageClass messageClass = MessageClass.of(message);
+        if (state.evicted.get()) {
+            dropped.get(messageClass).increment();
+            return null;
+        }
+
+        int pending = state.pending.get();
+        if (pending >= limits.get(messageClass)) {
+            dropped.get(messageClass).increment();
+            if (!messageClass.isDroppable()) {
+                evict(state, pending);
+            }
+            return null;
+        }
+
+        pendingDepth.record(state.pending.incrementAndGet());
+        return message;
+    }
+
+    // A later interceptor dropped the frame or the executor rejected it, it will not be handled.
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (!sent || ex != null) {
+            release(message);
+        }
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        return message;
+    }
+
+    // Called for every frame that reached the executor, also when a later interceptor drops it
+    // before the handler or the handler fails.
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        release(message);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState(session);
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private void release(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+        if (state != null) {
+            state.pending.updateAndGet(pending -> pending > 0 ? pending - 1 : 0);
+        }
+    }
+
+    private void evict(SessionState state, int pending) {
+        if (!state.evicted.compareAndSet(false, true)) {
+            return;
+        }
+
+        evictions.increment();
+        log.info("Closing session {} with {} frames pending", state.session.getId(), pending);
+        try {
+            state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Could not close slow session {}", state.session.getId(), e);
+        }
+    }
+
+    private static double maxPending(Map<String, SessionState> sessions) {
+        int max = 0;
+        for (SessionState state : sessions.values()) {
+            max = Math.max(max, state.pending.get());
+        }
+        return max;
+    }
+
+    private static final class SessionState {
+        private final WebSocketSession session;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean evicted = new AtomicBoolean();
+
+        private SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+}
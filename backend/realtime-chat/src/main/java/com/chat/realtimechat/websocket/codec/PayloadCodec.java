@@ -0,0 +1,47 @@
+package com.chat.realtimechat.websocket.codec;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Encoding of outbound frame bodies. Payloads are published to the broker as JSON once for all
+ * subscribers and re-encoded on the way out, once per publish and codec, so older clients keep
+ * receiving JSON. The server still encodes JSON first, a binary codec adds one transcode to it.
+ */
+public enum PayloadCodec {
+    JSON,
+    CBOR;
+
+    /**
+     * STOMP header a client sends on CONNECT to ask for a codec, echoed on CONNECTED when granted.
+     */
+    public static final String HEADER = "payload-codec";
+
+    private static final JsonMapper JSON_MAPPER = JsonMapper.shared();
+    private static final CBORMapper CBOR_MAPPER = CBORMapper.shared();
+
+    public static PayloadCodec negotiate(String requested) {
+        return "cbor".equalsIgnoreCase(requested) ? CBOR : JSON;
+    }
+
+    /**
+     * Re-encodes a JSON body by copying its tokens, no object tree is built.
+     */
+    public byte[] encode(byte[] json) {
+        if (this == JSON) {
+            return json;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = JSON_MAPPER.createParser(json);
+             JsonGenerator generator = CBOR_MAPPER.createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        return out.toByteArray();
+    }
+}
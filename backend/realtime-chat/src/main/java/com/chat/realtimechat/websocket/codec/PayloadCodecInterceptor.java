@@ -0,0 +1,189 @@
+package com.chat.realtimechat.websocket.codec;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies the payload codec a session negotiated on CONNECT. Only sessions on the native endpoint
+ * can ask for a binary codec, SockJS carries text frames. Binary bodies go out as
+ * {@code application/octet-stream}, which is what makes the STOMP handler send a binary WebSocket
+ * message, the codec itself was confirmed on CONNECTED.
+ * <p>
+ * The broker hands every subscriber of a publish the same body in its own array. Recent bodies are
+ * kept with their encoding, so a publish is encoded once per codec rather than once per session.
+ * <p>
+ * Only registered with {@code chat.websocket.codec.binaryEnabled}. CBOR saves bytes on the wire but
+ * costs encode time on the server, see {@code PayloadCodecBenchmark}, and the web client stays on
+ * JSON, so it is for deployments whose native clients are bandwidth bound.
+ */
+@Component
+@Slf4j
+public class PayloadCodecInterceptor implements ExecutorChannelInterceptor, HandshakeInterceptor {
+
+    private static final String NATIVE_ENDPOINT_ATTRIBUTE = "nativeEndpoint";
+
+    private final Map<String, PayloadCodec> sessionCodecs = new ConcurrentHashMap<>();
+    private final Map<EncodingKey, byte[]> recentEncodings;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Counter encodingHits;
+    private final Counter encodingMisses;
+
+    public PayloadCodecInterceptor(
+            MeterRegistry meterRegistry,
+            @Value("${chat.websocket.codec.recentEncodings:256}") int maxRecentEncodings
+    ) {
+        this.recentEncodings = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<EncodingKey, byte[]> eldest) {
+                return size() > maxRecentEncodings;
+            }
+        };
+
+        this.encodingHits = Counter.builder("chat.websocket.codec.encodings")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.encodingMisses = Counter.builder("chat.websocket.codec.encodings")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        attributes.put(NATIVE_ENDPOINT_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    public void connecting(StompHeaderAccessor connect) {
+        Map<String, Object> attributes = connect.getSessionAttributes();
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(NATIVE_ENDPOINT_ATTRIBUTE))) {
+            return;
+        }
+
+        PayloadCodec codec = PayloadCodec.negotiate(connect.getFirstNativeHeader(PayloadCodec.HEADER));
+        if (codec != PayloadCodec.JSON) {
+            sessionCodecs.put(connect.getSessionId(), codec);
+        }
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        PayloadCodec codec = sessionId != null ? sessionCodecs.get(sessionId) : null;
+        if (codec == null) {
+            return message;
+        }
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        if (accessor.getCommand() == StompCommand.CONNECTED) {
+            accessor.setNativeHeader(PayloadCodec.HEADER, codec.name().toLowerCase());
+            return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+        }
+
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] body) || body.length == 0
+                || accessor.getContentType() == null
+                || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(accessor.getContentType())) {
+            return message;
+        }
+
+        try {
+            byte[] encoded = encode(codec, body);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            return MessageBuilder.createMessage(encoded, accessor.getMessageHeaders());
+        } catch (RuntimeException e) {
+            log.warn("Could not encode frame for session {} as {}, sending JSON", sessionId, codec, e);
+            return message;
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        sessionCodecs.remove(event.getSessionId());
+    }
+
+    private byte[] encode(PayloadCodec codec, byte[] body) {
+        EncodingKey key = new EncodingKey(codec, body);
+        byte[] encoded;
+        lock.lock();
+        try {
+            encoded = recentEncodings.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (encoded != null) {
+            encodingHits.increment();
+            return encoded;
+        }
+
+        // Two sessions racing on the same body both encode it, the result is identical.
+        encoded = codec.encode(body);
+        encodingMisses.increment();
+        lock.lock();
+        try {
+            recentEncodings.put(key, encoded);
+        } finally {
+            lock.unlock();
+        }
+        return encoded;
+    }
+
+    // Compares bodies by content, the hash is computed once per frame.
+    private static final class EncodingKey {
+        private final PayloadCodec codec;
+        private final byte[] body;
+        private final int hash;
+
+        EncodingKey(PayloadCodec codec, byte[] body) {
+            this.codec = codec;
+            this.body = body;
+            this.hash = 31 * codec.hashCode() + Arrays.hashCode(body);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof EncodingKey other && hash == other.hash && codec == other.codec
+                    && Arrays.equals(body, other.body);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
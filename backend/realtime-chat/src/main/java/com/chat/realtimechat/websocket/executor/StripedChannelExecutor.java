@@ -0,0 +1,108 @@
+package com.chat.realtimechat.websocket.executor;
+
+import com.chat.realtimechat.websocket.InboundDestinations;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs inbound frames on a fixed set of single-threaded lanes. Chat messages are routed by group,
+ * typing and status frames by user and everything else by session, so frames with the same key
+ * are handled strictly in order while different keys run in parallel.
+ * <p>
+ * A handler blocked on JDBC or Redis holds up its whole lane. Lanes on virtual threads cost next
+ * to nothing while parked, so in that mode there are many more of them and fewer keys share one.
+ */
+@Component
+public class StripedChannelExecutor implements Executor, DisposableBean {
+
+    private final ThreadPoolExecutor[] lanes;
+
+    public StripedChannelExecutor(
+            @Value("${chat.websocket.inbound.lanes:32}") int laneCount,
+            @Value("${chat.websocket.inbound.virtualLanes:512}") int virtualLaneCount,
+            @Value("${chat.websocket.inbound.laneQueueCapacity:1000}") int laneQueueCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            MeterRegistry meterRegistry
+    ) {
+        // lanes=0 turns lanes off in both modes.
+        int count = laneCount <= 0 ? 0 : virtualThreads ? Math.max(virtualLaneCount, laneCount) : laneCount;
+        this.lanes = new ThreadPoolExecutor[count];
+        for (int i = 0; i < lanes.length; i++) {
+            ThreadFactory threads = virtualThreads
+                    ? Thread.ofVirtual().name("ws-lane-" + i).factory()
+                    : Thread.ofPlatform().name("ws-lane-" + i).factory();
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(laneQueueCapacity), threads);
+            lanes[i] = lane;
+
+            Gauge.builder("chat.websocket.inbound.lane.queue", lane, executor -> executor.getQueue().size())
+                    .tag("lane", Integer.toString(i))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("chat.websocket.inbound.lane.queue.max", this, StripedChannelExecutor::maxQueueSize)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return lanes.length > 0;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Message<?> message = task instanceof MessageHandlingRunnable runnable ? runnable.getMessage() : null;
+        int hash = message != null ? routingHash(message) : task.hashCode();
+        lanes[Math.floorMod(hash, lanes.length)].execute(task);
+    }
+
+    @Override
+    public void destroy() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private static int routingHash(Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+
+        if (InboundDestinations.SEND_MESSAGE.equals(destination) && message.getPayload() instanceof byte[] body) {
+            Long groupId = InboundDestinations.readGroupId(body);
+            if (groupId != null) {
+                return Long.hashCode(groupId * 0x9E3779B97F4A7C15L);
+            }
+        }
+
+        if (destination != null && (destination.startsWith(InboundDestinations.TYPING_PREFIX)
+                || InboundDestinations.SET_STATUS.equals(destination))) {
+            Principal user = SimpMessageHeaderAccessor.getUser(headers);
+            if (user != null) {
+                return user.getName().hashCode();
+            }
+        }
+
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        return sessionId != null ? sessionId.hashCode() : 0;
+    }
+
+    private static double maxQueueSize(StripedChannelExecutor executor) {
+        int max = 0;
+        for (ThreadPoolExecutor lane : executor.lanes) {
+            max = Math.max(max, lane.getQueue().size());
+        }
+        return max;
+    }
+}
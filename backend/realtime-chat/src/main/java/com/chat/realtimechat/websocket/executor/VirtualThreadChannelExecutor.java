@@ -0,0 +1,40 @@
+package com.chat.realtimechat.websocket.executor;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every message of a channel on its own virtual thread. There is no queue to watch, so the
+ * number of messages still being handled stands in for the queue depth of the pooled executor.
+ */
+public class VirtualThreadChannelExecutor extends SimpleAsyncTaskExecutor {
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    public VirtualThreadChannelExecutor(String threadNamePrefix) {
+        super(threadNamePrefix);
+        setVirtualThreads(true);
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    @Override
+    protected void doExecute(Runnable task) {
+        active.incrementAndGet();
+        try {
+            super.doExecute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            active.decrementAndGet();
+            throw e;
+        }
+    }
+}
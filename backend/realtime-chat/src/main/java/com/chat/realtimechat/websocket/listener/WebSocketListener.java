@@ -3,16 +3,16 @@ package com.chat.realtimechat.websocket.listener;
 import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
 import com.chat.realtimechat.model.dto.response.OnlineInfoResponse;
 import com.chat.realtimechat.model.entity.chat.ChatMessage;
-import com.chat.realtimechat.model.entity.users.User;
 import com.chat.realtimechat.model.enums.UserStatus;
 import com.chat.realtimechat.repository.users.UserRepository;
 import com.chat.realtimechat.service.chat.UserPresenceService;
+import com.chat.realtimechat.service.users.UserProfile;
+import com.chat.realtimechat.service.users.UserProfileCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
@@ -28,6 +28,7 @@ public class WebSocketListener {
     private final UserPresenceService presenceService;
     private final SimpMessageSendingOperations messagingTemplate;
     private final UserRepository userRepository;
+    private final UserProfileCache userProfileCache;
 
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
@@ -61,13 +62,12 @@ public class WebSocketListener {
     }
 
     private void sendPresenceMessage(String username, ChatMessage.MessageType type,  UserStatus status) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException(username));
+        UserProfile user = userProfileCache.getByUsername(username);
         ChatMessageResponse message = new ChatMessageResponse();
         message.setSender(new OnlineInfoResponse(
-                user.getName(),
-                user.getSurname(),
-                user.getUsername(),
+                user.name(),
+                user.surname(),
+                user.username(),
                 status
         ));
         message.setType(type);
@@ -0,0 +1,92 @@
+package com.chat.realtimechat.websocket.ratelimit;
+
+import com.chat.realtimechat.exception.chat.RateLimitExceededException;
+import com.chat.realtimechat.model.enums.RateLimitType;
+import com.chat.realtimechat.service.chat.RateLimiter;
+import com.chat.realtimechat.websocket.InboundDestinations;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Limits client SEND frames per user on the transport thread, before they are queued for a
+ * handler. Typing frames over the limit are dropped. Chat messages and status changes over the
+ * limit are dropped as well and the sender is told on {@code /user/queue/errors}, like a message
+ * over its group's limit, so the session stays open. A busy group is not the sender's fault, its
+ * limit is applied by the chat service.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InboundRateLimitInterceptor implements ChannelInterceptor {
+
+    private final RateLimiter rateLimiter;
+    // Looked up lazily, the template is built from the channels this interceptor is part of.
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SEND.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        Principal user = accessor.getUser();
+        String destination = accessor.getDestination();
+        if (user == null || destination == null) {
+            return message;
+        }
+
+        try {
+            if (InboundDestinations.SEND_MESSAGE.equals(destination)) {
+                // The group limit is checked by the chat service once membership is confirmed.
+                rateLimiter.acquire(RateLimitType.CHAT_SEND, user.getName());
+            } else if (destination.startsWith(InboundDestinations.TYPING_PREFIX)) {
+                if (!rateLimiter.tryAcquire(RateLimitType.TYPING, user.getName())) {
+                    return null;
+                }
+            } else if (InboundDestinations.SET_STATUS.equals(destination)) {
+                rateLimiter.acquire(RateLimitType.STATUS, user.getName());
+            }
+        } catch (RateLimitExceededException e) {
+            rateLimited(user.getName(), destination, message.getPayload(), e.getRetryAfterMs());
+            return null;
+        }
+        return message;
+    }
+
+    private void rateLimited(String username, String destination, Object payload, long retryAfterMs) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("type", "RATE_LIMITED");
+        error.put("destination", destination);
+        error.put("retryAfterMs", retryAfterMs);
+        if (InboundDestinations.SEND_MESSAGE.equals(destination) && payload instanceof byte[] body) {
+            // Only read on rejection, it tells the client which of its messages was not sent.
+            error.put("groupId", InboundDestinations.readGroupId(body));
+            try {
+                error.put("content", JsonMapper.shared().readTree(body).path("content").asString(""));
+            } catch (RuntimeException e) {
+                log.debug("Could not read a rate limited message of {}", username, e);
+            }
+        }
+
+        try {
+            messagingTemplate.getObject().convertAndSendToUser(username, "/queue/errors", error);
+        } catch (RuntimeException e) {
+            log.warn("Could not notify {} about a rate limited frame", username, e);
+        }
+    }
+}
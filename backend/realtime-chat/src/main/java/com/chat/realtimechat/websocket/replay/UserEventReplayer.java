@@ -0,0 +1,89 @@
+package com.chat.realtimechat.websocket.replay;
+
+import com.chat.realtimechat.service.chat.UserEvent;
+import com.chat.realtimechat.service.chat.UserEventStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Sends a reconnecting client the events it missed. The replay is written straight to the
+ * session while its SUBSCRIBE is still on the way to the broker, so it goes out ahead of anything
+ * the broker delivers live. Events recorded in between can arrive twice, clients drop repeated
+ * event ids.
+ */
+@Component
+@Slf4j
+public class UserEventReplayer {
+
+    private static final String USER_PREFIX = "/user";
+    private static final Set<String> REPLAYED_DESTINATIONS = Set.of("/queue/messages", "/queue/groups");
+    private static final Pattern EVENT_ID = Pattern.compile("\\d+-\\d+");
+
+    private final UserEventStream userEventStream;
+    private final MessageChannel clientOutboundChannel;
+
+    public UserEventReplayer(
+            UserEventStream userEventStream,
+            @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel
+    ) {
+        this.userEventStream = userEventStream;
+        this.clientOutboundChannel = clientOutboundChannel;
+    }
+
+    /**
+     * Remembers the {@code last-event-id} a client presented on CONNECT for its subscriptions.
+     */
+    public void connecting(StompHeaderAccessor connect) {
+        String lastEventId = connect.getFirstNativeHeader(UserEventStream.LAST_EVENT_ID_HEADER);
+        Map<String, Object> attributes = connect.getSessionAttributes();
+        if (lastEventId != null && attributes != null && EVENT_ID.matcher(lastEventId).matches()) {
+            attributes.put(UserEventStream.LAST_EVENT_ID_HEADER, lastEventId);
+        }
+    }
+
+    public void subscribing(StompHeaderAccessor subscribe) {
+        String destination = subscribe.getDestination();
+        Principal user = subscribe.getUser();
+        Map<String, Object> attributes = subscribe.getSessionAttributes();
+        if (destination == null || user == null || attributes == null || !destination.startsWith(USER_PREFIX)) {
+            return;
+        }
+
+        String userDestination = destination.substring(USER_PREFIX.length());
+        Object lastEventId = attributes.get(UserEventStream.LAST_EVENT_ID_HEADER);
+        if (lastEventId == null || !REPLAYED_DESTINATIONS.contains(userDestination)) {
+            return;
+        }
+
+        try {
+            for (UserEvent event : userEventStream.readAfter(user.getName(), lastEventId.toString(), userDestination)) {
+                clientOutboundChannel.send(toFrame(subscribe, destination, event));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not replay {} for {}", userDestination, user.getName(), e);
+        }
+    }
+
+    private static Message<byte[]> toFrame(StompHeaderAccessor subscribe, String destination, UserEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        headers.setSessionId(subscribe.getSessionId());
+        headers.setSubscriptionId(subscribe.getSubscriptionId());
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setMessageId(subscribe.getSessionId() + "-" + event.id());
+        headers.setNativeHeader(UserEventStream.EVENT_ID_HEADER, event.id());
+        return MessageBuilder.createMessage(event.payload(), headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,178 @@
+package com.chat.realtimechat.websocket.subscription;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which session subscribed to which {@code /topic/group.{id}} on this node, so that a
+ * member who is removed stops receiving the group's topic right away instead of keeping the
+ * subscription it was allowed to make earlier. Revocations go through Redis because the removed
+ * user's sessions can live on any node. The broker subscription is cancelled with an UNSUBSCRIBE on
+ * the session's relay connection, the client learns about the removal from its
+ * {@code /queue/groups} event and any attempt to subscribe again is refused.
+ */
+@Component
+@Slf4j
+public class GroupSubscriptionRegistry {
+
+    public static final String GROUP_TOPIC_PREFIX = "/topic/group.";
+
+    private static final String REVOCATION_CHANNEL = "chat:ws:group-revocations";
+
+    private final MessageChannel brokerChannel;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final JsonMapper jsonMapper;
+
+    // session id -> subscription id -> group subscription
+    private final Map<String, Map<String, GroupSubscription>> sessions = new ConcurrentHashMap<>();
+
+    public GroupSubscriptionRegistry(
+            @Qualifier("brokerChannel") MessageChannel brokerChannel,
+            StringRedisTemplate stringRedisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            JsonMapper jsonMapper
+    ) {
+        this.brokerChannel = brokerChannel;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @PostConstruct
+    public void subscribeToRevocations() {
+        listenerContainer.addMessageListener(
+                (message, pattern) -> revokeLocal(jsonMapper.readValue(message.getBody(), Revocation.class)),
+                new ChannelTopic(REVOCATION_CHANNEL));
+    }
+
+    /**
+     * Cancels the group topic subscriptions of the given users on every node, after the current
+     * transaction commits if there is one.
+     */
+    public void revoke(Long groupId, Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+
+        Revocation revocation = new Revocation(groupId, List.copyOf(usernames));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishRevocation(revocation);
+                }
+            });
+        } else {
+            publishRevocation(revocation);
+        }
+    }
+
+    @EventListener
+    public void handleSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Long groupId = parseGroupId(accessor.getDestination());
+        Principal user = event.getUser();
+        if (groupId == null || user == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+
+        sessions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), new GroupSubscription(groupId, user.getName()));
+    }
+
+    @EventListener
+    public void handleUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, GroupSubscription> subscriptions =
+                accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (subscriptions != null && accessor.getSubscriptionId() != null) {
+            subscriptions.remove(accessor.getSubscriptionId());
+        }
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    /**
+     * The group id of an exact {@code /topic/group.{id}} destination, or null for anything else.
+     */
+    public static Long parseGroupId(String destination) {
+        if (destination == null || !destination.startsWith(GROUP_TOPIC_PREFIX)
+                || destination.length() == GROUP_TOPIC_PREFIX.length()) {
+            return null;
+        }
+        for (int i = GROUP_TOPIC_PREFIX.length(); i < destination.length(); i++) {
+            if (!Character.isDigit(destination.charAt(i))) {
+                return null;
+            }
+        }
+        try {
+            return Long.valueOf(destination.substring(GROUP_TOPIC_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    void revokeLocal(Revocation revocation) {
+        sessions.forEach((sessionId, subscriptions) -> subscriptions.forEach((subscriptionId, subscription) -> {
+            if (subscription.groupId().equals(revocation.groupId())
+                    && revocation.usernames().contains(subscription.username())
+                    && subscriptions.remove(subscriptionId, subscription)) {
+                unsubscribe(sessionId, subscriptionId, subscription);
+            }
+        }));
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId, GroupSubscription subscription) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        try {
+            brokerChannel.send(MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()));
+            log.info("Revoked {} subscription to group {}", subscription.username(), subscription.groupId());
+        } catch (RuntimeException e) {
+            log.warn("Could not revoke {} subscription to group {}", subscription.username(), subscription.groupId(), e);
+        }
+    }
+
+    private void publishRevocation(Revocation revocation) {
+        try {
+            stringRedisTemplate.convertAndSend(REVOCATION_CHANNEL, jsonMapper.writeValueAsString(revocation));
+        } catch (RuntimeException e) {
+            // Other nodes miss it, but the sessions held here can still be cut off.
+            log.warn("Could not publish subscription revocation for group {}", revocation.groupId(), e);
+            revokeLocal(revocation);
+        }
+    }
+
+    record Revocation(Long groupId, List<String> usernames) {
+    }
+
+    private record GroupSubscription(Long groupId, String username) {
+    }
+}
@@ -0,0 +1,50 @@
+-- Full-text search over chat_message: the content_tsv column, the trigger that keeps it up to date
+-- on insert and update, its GIN index, and the backfill of messages written before the trigger.
+--
+-- Run it once, before partition_chat_message.sql if the table is to be partitioned. The
+-- application keeps running meanwhile:
+--   psql -v ON_ERROR_STOP=1 -f chat_message_search.sql
+-- Statements run on their own, CREATE INDEX CONCURRENTLY and the batched backfill cannot run in
+-- a transaction block. Every step can be repeated, an interrupted run is simply started again.
+
+ALTER TABLE chat_message ADD COLUMN IF NOT EXISTS content_tsv tsvector;
+
+CREATE OR REPLACE FUNCTION chat_message_content_tsv() RETURNS trigger AS $$
+BEGIN
+    IF coalesce(NEW.content_type, 'TEXT') IN ('TEXT', 'LINK') THEN
+        NEW.content_tsv := to_tsvector('simple', coalesce(NEW.content, ''));
+    ELSE
+        NEW.content_tsv := NULL;
+    END IF;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE TRIGGER chat_message_content_tsv
+    BEFORE INSERT OR UPDATE OF content, content_type ON chat_message
+    FOR EACH ROW EXECUTE FUNCTION chat_message_content_tsv();
+
+-- CONCURRENTLY keeps writes flowing while the indexes build. The backlog index shrinks to nothing
+-- as the backfill proceeds, new rows never enter it.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_chat_message_content_tsv ON chat_message USING GIN (content_tsv);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_chat_message_tsv_backlog ON chat_message (id)
+    WHERE content_tsv IS NULL AND coalesce(content_type, 'TEXT') IN ('TEXT', 'LINK');
+
+-- Newest messages first, they are the most likely to be searched. Each batch commits on its own.
+-- Rows locked by a concurrent update are skipped and left for another run, the application's
+-- chat.search.index.backlog gauge shows whether any remain.
+DO $$
+DECLARE
+    updated integer;
+BEGIN
+    LOOP
+        UPDATE chat_message SET content_tsv = to_tsvector('simple', coalesce(content, ''))
+        WHERE id IN (SELECT id FROM chat_message
+                     WHERE content_tsv IS NULL AND coalesce(content_type, 'TEXT') IN ('TEXT', 'LINK')
+                     ORDER BY id DESC LIMIT 5000 FOR UPDATE SKIP LOCKED);
+        GET DIAGNOSTICS updated = ROW_COUNT;
+        EXIT WHEN updated = 0;
+        COMMIT;
+    END LOOP;
+END
+$$;
@@ -0,0 +1,86 @@
+-- Converts chat_message into a table partitioned by RANGE (id).
+--
+-- Message ids are snowflake ids, so an id range is a time range. The existing table becomes the
+-- partition chat_message_legacy, holding every id below the start of next month (UTC).
+-- MessagePartitionManager creates the monthly partitions from there on.
+--
+-- Run it once, after chat_message_search.sql and with the application stopped:
+--   psql -v ON_ERROR_STOP=1 -f partition_chat_message.sql
+-- The ATTACH and the foreign keys validate the existing rows, which takes a while on a large table.
+
+BEGIN;
+
+LOCK TABLE chat_message IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE chat_message ADD COLUMN IF NOT EXISTS content_tsv tsvector;
+DROP TRIGGER IF EXISTS chat_message_content_tsv ON chat_message;
+
+ALTER TABLE chat_message RENAME TO chat_message_legacy;
+ALTER INDEX chat_message_pkey RENAME TO chat_message_legacy_pkey;
+ALTER INDEX IF EXISTS idx_chat_message_group_id RENAME TO chat_message_legacy_group_id;
+ALTER INDEX IF EXISTS idx_chat_message_group_content_type RENAME TO chat_message_legacy_group_content_type;
+ALTER INDEX IF EXISTS idx_chat_message_parent_id RENAME TO chat_message_legacy_parent_id;
+ALTER INDEX IF EXISTS idx_chat_message_content_tsv RENAME TO chat_message_legacy_content_tsv;
+ALTER INDEX IF EXISTS idx_chat_message_tsv_backlog RENAME TO chat_message_legacy_tsv_backlog;
+
+-- Foreign keys are recreated on the partitioned table under their original names, so that
+-- Hibernate's schema update still recognises them.
+CREATE TEMPORARY TABLE chat_message_fks ON COMMIT DROP AS
+SELECT conname,
+       conrelid::regclass::text AS table_name,
+       replace(pg_get_constraintdef(oid), 'chat_message_legacy(', 'chat_message(') AS definition
+FROM pg_constraint
+WHERE contype = 'f'
+  AND (conrelid = 'chat_message_legacy'::regclass OR confrelid = 'chat_message_legacy'::regclass);
+
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    FOR fk IN SELECT * FROM chat_message_fks LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.table_name, fk.conname);
+    END LOOP;
+END
+$$;
+
+CREATE TABLE chat_message (LIKE chat_message_legacy INCLUDING DEFAULTS INCLUDING STORAGE)
+    PARTITION BY RANGE (id);
+
+-- Same definitions as on the legacy table, which lets ATTACH adopt its indexes instead of rebuilding them.
+ALTER TABLE chat_message ADD CONSTRAINT chat_message_pkey PRIMARY KEY (id);
+CREATE INDEX idx_chat_message_group_id ON chat_message (chat_group_id, id);
+CREATE INDEX idx_chat_message_group_content_type ON chat_message (chat_group_id, content_type, id);
+CREATE INDEX idx_chat_message_parent_id ON chat_message (parent_id);
+CREATE INDEX idx_chat_message_content_tsv ON chat_message USING GIN (content_tsv);
+CREATE INDEX idx_chat_message_tsv_backlog ON chat_message (id)
+    WHERE content_tsv IS NULL AND coalesce(content_type, 'TEXT') IN ('TEXT', 'LINK');
+
+DO $$
+DECLARE
+    -- First snowflake id of next month: (millis since 2025-01-01 UTC) << 22.
+    legacy_ceiling bigint := ((extract(epoch FROM date_trunc('month', now() AT TIME ZONE 'UTC') + interval '1 month') * 1000)::bigint
+                              - 1735689600000) << 22;
+BEGIN
+    EXECUTE format('ALTER TABLE chat_message ATTACH PARTITION chat_message_legacy FOR VALUES FROM (MINVALUE) TO (%s)',
+                   legacy_ceiling);
+END
+$$;
+
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    FOR fk IN SELECT * FROM chat_message_fks LOOP
+        EXECUTE format('ALTER TABLE %s ADD CONSTRAINT %I %s',
+                       replace(fk.table_name, 'chat_message_legacy', 'chat_message'), fk.conname, fk.definition);
+    END LOOP;
+END
+$$;
+
+-- The search trigger from chat_message_search.sql, on the partitioned table it applies to every
+-- partition.
+CREATE OR REPLACE TRIGGER chat_message_content_tsv
+    BEFORE INSERT OR UPDATE OF content, content_type ON chat_message
+    FOR EACH ROW EXECUTE FUNCTION chat_message_content_tsv();
+
+COMMIT;
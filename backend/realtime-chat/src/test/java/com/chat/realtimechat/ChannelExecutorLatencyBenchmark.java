@@ -0,0 +1,91 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.websocket.executor.VirtualThreadChannelExecutor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends a mix of messages through an inbound channel while the database is slow. Every tenth
+ * message waits for one of ten connections and holds it for 20 ms, the rest never touch the
+ * database, like typing events. Prints the p99 latency of both kinds for each executor.
+ * Not part of {@code mvn test}, run it with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class ChannelExecutorLatencyBenchmark {
+
+    private static final int MESSAGES = 2000;
+    private static final int CONNECTIONS = 10;
+    private static final long QUERY_MS = 20;
+
+    @Test
+    public void pooledAndVirtualLatencyWhileTheDatabaseStalls() throws InterruptedException {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(16);
+        pool.setMaxPoolSize(32);
+        pool.setQueueCapacity(10000);
+        pool.initialize();
+
+        long[][] pooled;
+        long[][] virtual;
+        try {
+            pooled = run(pool);
+            virtual = run(new VirtualThreadChannelExecutor("ws-inbound-"));
+        } finally {
+            pool.shutdown();
+        }
+
+        System.out.printf("pooled:  fast p99 %d ms, database p99 %d ms%n", p99(pooled[0]), p99(pooled[1]));
+        System.out.printf("virtual: fast p99 %d ms, database p99 %d ms%n", p99(virtual[0]), p99(virtual[1]));
+    }
+
+    // Latencies in ms of the messages that skip the database and of those that query it.
+    private static long[][] run(Executor executor) throws InterruptedException {
+        Semaphore database = new Semaphore(CONNECTIONS, true);
+        long[] fast = new long[MESSAGES - MESSAGES / 10];
+        long[] slow = new long[MESSAGES / 10];
+        CountDownLatch done = new CountDownLatch(MESSAGES);
+
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+        channel.subscribe(message -> {
+            int index = (Integer) message.getPayload();
+            long sentAt = message.getHeaders().getTimestamp();
+            if (index % 10 == 0) {
+                database.acquireUninterruptibly();
+                try {
+                    Thread.sleep(QUERY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    database.release();
+                }
+                slow[index / 10] = System.currentTimeMillis() - sentAt;
+            } else {
+                fast[index - index / 10 - 1] = System.currentTimeMillis() - sentAt;
+            }
+            done.countDown();
+        });
+
+        for (int i = 0; i < MESSAGES; i++) {
+            channel.send(MessageBuilder.withPayload(i).build());
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        return new long[][]{fast, slow};
+    }
+
+    private static long p99(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+    }
+}
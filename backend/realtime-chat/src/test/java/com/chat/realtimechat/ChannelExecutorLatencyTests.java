@@ -0,0 +1,96 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.websocket.executor.VirtualThreadChannelExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Handlers blocked on the database hold on to pooled threads, so messages that never touch the
+ * database wait behind them. On virtual threads they run while the others stay blocked. The
+ * latencies of both executors are compared by {@link ChannelExecutorLatencyBenchmark}.
+ */
+public class ChannelExecutorLatencyTests {
+
+    private static final int BLOCKED = 8;
+    private static final int FAST = 100;
+
+    private final CountDownLatch blockedStarted = new CountDownLatch(BLOCKED);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch fastDone = new CountDownLatch(FAST);
+
+    @Test
+    public void pooledThreadsQueueFastMessagesBehindBlockedOnes() throws InterruptedException {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(BLOCKED);
+        pool.setMaxPoolSize(BLOCKED);
+        pool.setQueueCapacity(10000);
+        pool.initialize();
+        try {
+            ExecutorSubscribableChannel channel = channel(pool);
+            sendBlocked(channel);
+            sendFast(channel);
+
+            assertEquals(FAST, fastDone.getCount());
+            assertEquals(FAST, pool.getThreadPoolExecutor().getQueue().size());
+
+            release.countDown();
+            assertTrue(fastDone.await(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void virtualThreadsRunFastMessagesWhileOthersAreBlocked() throws InterruptedException {
+        try {
+            ExecutorSubscribableChannel channel = channel(new VirtualThreadChannelExecutor("ws-inbound-"));
+            sendBlocked(channel);
+            sendFast(channel);
+
+            assertTrue(fastDone.await(10, TimeUnit.SECONDS));
+            assertEquals(1, release.getCount());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private ExecutorSubscribableChannel channel(Executor executor) {
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+        channel.subscribe(message -> {
+            if ("blocked".equals(message.getPayload())) {
+                blockedStarted.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                fastDone.countDown();
+            }
+        });
+        return channel;
+    }
+
+    // Returns once every blocked handler is running, each holding its thread.
+    private void sendBlocked(ExecutorSubscribableChannel channel) throws InterruptedException {
+        for (int i = 0; i < BLOCKED; i++) {
+            channel.send(MessageBuilder.withPayload("blocked").build());
+        }
+        assertTrue(blockedStarted.await(10, TimeUnit.SECONDS));
+    }
+
+    private void sendFast(ExecutorSubscribableChannel channel) {
+        for (int i = 0; i < FAST; i++) {
+            channel.send(MessageBuilder.withPayload("fast").build());
+        }
+    }
+}
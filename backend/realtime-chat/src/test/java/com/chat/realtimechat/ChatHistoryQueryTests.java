@@ -0,0 +1,135 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.config.IdGeneratorConfig;
+import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.entity.chat.ChatGroup;
+import com.chat.realtimechat.model.entity.chat.ChatMessage;
+import com.chat.realtimechat.model.entity.users.User;
+import com.chat.realtimechat.model.enums.GroupType;
+import com.chat.realtimechat.model.enums.MessageContentType;
+import com.chat.realtimechat.repository.chat.ChatMessageRepository;
+import com.chat.realtimechat.util.SnowflakeIdGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(IdGeneratorConfig.class)
+public class ChatHistoryQueryTests {
+
+    private static final int MESSAGES = 40;
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long groupId;
+    private Long lastMessageId;
+
+    @BeforeEach
+    public void setUp() {
+        SnowflakeIdGenerator ids = new SnowflakeIdGenerator(0);
+
+        List<User> senders = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            User user = new User();
+            user.setUsername("sender" + i);
+            user.setEmail("sender" + i + "@example.com");
+            user.setName("Sender");
+            user.setSurname(Integer.toString(i));
+            entityManager.persist(user);
+            senders.add(user);
+        }
+
+        ChatGroup group = new ChatGroup();
+        group.setName("history");
+        group.setType(GroupType.GROUP);
+        group.setCreatedAt(LocalDateTime.now());
+        senders.forEach(group::addMember);
+        entityManager.persist(group);
+        groupId = group.getId();
+
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            ChatMessage message = new ChatMessage();
+            message.setId(ids.nextId());
+            message.setContent("message " + i);
+            message.setTimestamp(LocalDateTime.now());
+            message.setType(ChatMessage.MessageType.CHAT);
+            message.setContentType(MessageContentType.TEXT);
+            message.setGroup(group);
+            message.setSender(senders.get(i % senders.size()));
+            // Every third message replies to an older one written by someone else.
+            if (i >= 3 && i % 3 == 0) {
+                message.setParent(messages.get(i - 2));
+            }
+            entityManager.persist(message);
+            messages.add(message);
+        }
+        lastMessageId = messages.getLast().getId();
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void latestPageLoadsSendersAndParentsInOneStatement() {
+        Statistics statistics = statistics();
+
+        List<ChatMessageResponse> page = chatMessageRepository.findByGroupIdOrderByIdDesc(groupId, Limit.of(PAGE_SIZE))
+                .stream()
+                .map(ChatMessageResponse::fromEntity)
+                .toList();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(PAGE_SIZE, page.size());
+        page.forEach(message -> assertNotNull(message.getSender()));
+        page.forEach(message -> assertEquals("history", message.getGroupName()));
+        assertTrue(page.stream().anyMatch(m -> m.getParent() != null && m.getParent().getSender() != null));
+    }
+
+    @Test
+    public void cursorAndOffsetPagesLoadInOneStatementEach() {
+        Statistics statistics = statistics();
+
+        chatMessageRepository.findByGroupIdAndIdLessThanOrderByIdDesc(groupId, lastMessageId, Limit.of(PAGE_SIZE))
+                .forEach(ChatMessageResponse::fromEntity);
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        entityManager.clear();
+        statistics.clear();
+        chatMessageRepository.findByGroupId(groupId, PageRequest.of(1, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "id")))
+                .forEach(ChatMessageResponse::fromEntity);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
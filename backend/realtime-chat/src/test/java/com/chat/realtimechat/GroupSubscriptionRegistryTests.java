@@ -0,0 +1,108 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.websocket.subscription.GroupSubscriptionRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class GroupSubscriptionRegistryTests {
+
+    private final List<Message<?>> brokerMessages = new CopyOnWriteArrayList<>();
+    private final GroupSubscriptionRegistry registry = registry();
+
+    @Test
+    public void onlyExactGroupTopicsAreParsed() {
+        assertEquals(42L, GroupSubscriptionRegistry.parseGroupId("/topic/group.42"));
+        assertNull(GroupSubscriptionRegistry.parseGroupId("/topic/group.*"));
+        assertNull(GroupSubscriptionRegistry.parseGroupId("/topic/group.#"));
+        assertNull(GroupSubscriptionRegistry.parseGroupId("/topic/group.1.*"));
+        assertNull(GroupSubscriptionRegistry.parseGroupId("/topic/group."));
+        assertNull(GroupSubscriptionRegistry.parseGroupId("/topic/group.-1"));
+        assertNull(GroupSubscriptionRegistry.parseGroupId("/topic/group.99999999999999999999"));
+        assertNull(GroupSubscriptionRegistry.parseGroupId("/topic/public"));
+    }
+
+    @Test
+    public void revokeUnsubscribesOnlyTheRemovedUsersFromThatGroup() {
+        registry.handleSubscribe(subscribe("s1", "sub-0", "/topic/group.5", "alice"));
+        registry.handleSubscribe(subscribe("s2", "sub-0", "/topic/group.5", "bob"));
+        registry.handleSubscribe(subscribe("s2", "sub-1", "/topic/group.6", "bob"));
+        registry.handleSubscribe(subscribe("s3", "sub-0", "/topic/group.5", "bob"));
+        registry.handleUnsubscribe(unsubscribe("s3", "sub-0", "bob"));
+
+        registry.revoke(5L, List.of("bob"));
+
+        assertEquals(1, brokerMessages.size());
+        StompHeaderAccessor unsubscribe = StompHeaderAccessor.wrap(brokerMessages.getFirst());
+        assertEquals(StompCommand.UNSUBSCRIBE, unsubscribe.getCommand());
+        assertEquals("s2", unsubscribe.getSessionId());
+        assertEquals("sub-0", unsubscribe.getSubscriptionId());
+
+        registry.revoke(5L, List.of("bob"));
+        assertEquals(1, brokerMessages.size());
+    }
+
+    private GroupSubscriptionRegistry registry() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        RedisMessageListenerContainer container = mock(RedisMessageListenerContainer.class);
+        AtomicReference<MessageListener> listener = new AtomicReference<>();
+        doAnswer(invocation -> {
+            listener.set(invocation.getArgument(0));
+            return null;
+        }).when(container).addMessageListener(any(MessageListener.class), any(Topic.class));
+        when(redis.convertAndSend(anyString(), any())).thenAnswer(invocation -> {
+            String channel = invocation.getArgument(0);
+            String body = invocation.getArgument(1);
+            listener.get().onMessage(new DefaultMessage(
+                    channel.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8)), null);
+            return 1L;
+        });
+
+        GroupSubscriptionRegistry registry =
+                new GroupSubscriptionRegistry((message, timeout) -> brokerMessages.add(message), redis, container, JsonMapper.shared());
+        registry.subscribeToRevocations();
+        return registry;
+    }
+
+    private static SessionSubscribeEvent subscribe(String sessionId, String subscriptionId, String destination, String username) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        return new SessionSubscribeEvent(GroupSubscriptionRegistryTests.class,
+                MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()), user(username));
+    }
+
+    private static SessionUnsubscribeEvent unsubscribe(String sessionId, String subscriptionId, String username) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        return new SessionUnsubscribeEvent(GroupSubscriptionRegistryTests.class,
+                MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()), user(username));
+    }
+
+    private static TestingAuthenticationToken user(String username) {
+        return new TestingAuthenticationToken(username, null);
+    }
+}
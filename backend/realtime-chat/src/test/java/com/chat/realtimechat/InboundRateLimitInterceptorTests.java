@@ -0,0 +1,70 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.exception.chat.RateLimitExceededException;
+import com.chat.realtimechat.model.enums.RateLimitType;
+import com.chat.realtimechat.service.chat.RateLimiter;
+import com.chat.realtimechat.websocket.InboundDestinations;
+import com.chat.realtimechat.websocket.ratelimit.InboundRateLimitInterceptor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class InboundRateLimitInterceptorTests {
+
+    private final RateLimiter rateLimiter = mock(RateLimiter.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+
+    private final InboundRateLimitInterceptor interceptor = new InboundRateLimitInterceptor(rateLimiter, templateProvider());
+
+    @Test
+    public void sendOverTheUserLimitIsDroppedAndReportedWithoutClosingTheSession() {
+        doThrow(new RateLimitExceededException("Too many messages", 1500))
+                .when(rateLimiter).acquire(RateLimitType.CHAT_SEND, "alice");
+
+        Message<?> result = interceptor.preSend(send(InboundDestinations.SEND_MESSAGE,
+                "{\"groupId\":42,\"content\":\"hi\"}"), mock(MessageChannel.class));
+
+        assertNull(result);
+        verify(messagingTemplate).convertAndSendToUser(eq("alice"), eq("/queue/errors"), argThat(error -> {
+            Map<?, ?> fields = (Map<?, ?>) error;
+            return "RATE_LIMITED".equals(fields.get("type")) && Long.valueOf(42).equals(fields.get("groupId"))
+                    && "hi".equals(fields.get("content")) && Long.valueOf(1500).equals(fields.get("retryAfterMs"));
+        }));
+    }
+
+    @Test
+    public void sendWithinTheLimitPassesThrough() {
+        Message<byte[]> message = send(InboundDestinations.SEND_MESSAGE, "{\"groupId\":42,\"content\":\"hi\"}");
+
+        assertSame(message, interceptor.preSend(message, mock(MessageChannel.class)));
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ObjectProvider<SimpMessagingTemplate> templateProvider() {
+        ObjectProvider<SimpMessagingTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(messagingTemplate);
+        return provider;
+    }
+
+    private static Message<byte[]> send(String destination, String body) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setDestination(destination);
+        accessor.setUser(new UsernamePasswordAuthenticationToken("alice", null));
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
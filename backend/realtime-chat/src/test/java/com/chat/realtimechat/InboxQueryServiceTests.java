@@ -0,0 +1,127 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.config.IdGeneratorConfig;
+import com.chat.realtimechat.model.dto.response.ChatGroupResponse;
+import com.chat.realtimechat.model.entity.chat.ChatGroup;
+import com.chat.realtimechat.model.entity.users.User;
+import com.chat.realtimechat.model.enums.GroupType;
+import com.chat.realtimechat.service.chat.InboxQueryService;
+import com.chat.realtimechat.service.chat.InboxQueryServiceImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({InboxQueryServiceImpl.class, IdGeneratorConfig.class})
+public class InboxQueryServiceTests {
+
+    private static final int GROUPS = 30;
+    private static final int MEMBERS_PER_GROUP = 5;
+
+    @Autowired
+    private InboxQueryService inboxQueryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private User peer;
+
+    @BeforeEach
+    public void setUp() {
+        owner = persistUser("owner");
+        peer = persistUser("peer");
+
+        List<User> others = new ArrayList<>();
+        for (int i = 0; i < MEMBERS_PER_GROUP - 1; i++) {
+            others.add(persistUser("member" + i));
+        }
+
+        for (int g = 0; g < GROUPS; g++) {
+            ChatGroup group = new ChatGroup();
+            group.setName("group" + g);
+            group.setType(GroupType.GROUP);
+            group.setCreatedAt(LocalDateTime.now().minusMinutes(GROUPS - g));
+            group.addMember(owner);
+            others.forEach(group::addMember);
+            group.getAdmins().add(owner);
+            entityManager.persist(group);
+        }
+
+        ChatGroup privateChat = new ChatGroup();
+        privateChat.setName("private");
+        privateChat.setType(GroupType.PRIVATE);
+        privateChat.setCreatedAt(LocalDateTime.now());
+        privateChat.addMember(owner);
+        privateChat.addMember(peer);
+        entityManager.persist(privateChat);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void inboxPageUsesFixedNumberOfStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        Page<ChatGroupResponse> smallPage = inboxQueryService.getInboxPage(owner.getId(), PageRequest.of(0, 5));
+        long smallPageStatements = statistics.getPrepareStatementCount();
+
+        entityManager.clear();
+        statistics.clear();
+        Page<ChatGroupResponse> largePage = inboxQueryService.getInboxPage(owner.getId(), PageRequest.of(0, 25));
+        long largePageStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(5, smallPage.getContent().size());
+        assertEquals(25, largePage.getContent().size());
+        assertEquals(GROUPS + 1, largePage.getTotalElements());
+        assertTrue(largePageStatements <= 4, "Expected at most 4 statements but got " + largePageStatements);
+        assertEquals(smallPageStatements, largePageStatements);
+    }
+
+    @Test
+    public void inboxPageResolvesMembersAdminsAndPeerName() {
+        Page<ChatGroupResponse> page = inboxQueryService.getInboxPage(owner.getId(), PageRequest.of(0, 5));
+
+        ChatGroupResponse privateChat = page.getContent().getFirst();
+        assertEquals(GroupType.PRIVATE, privateChat.getGroupType());
+        assertEquals("peer Peer", privateChat.getName());
+        assertEquals(2, privateChat.getMembers().size());
+
+        ChatGroupResponse group = page.getContent().get(1);
+        assertEquals(MEMBERS_PER_GROUP, group.getMembers().size());
+        assertEquals(1, group.getAdmins().size());
+        assertEquals("owner", group.getAdmins().iterator().next().getUsername());
+    }
+
+    private User persistUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setName(username);
+        user.setSurname(Character.toUpperCase(username.charAt(0)) + username.substring(1));
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,61 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.util.InvalidatingLruCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class InvalidatingLruCacheTests {
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+    private final List<String> removed = new ArrayList<>();
+
+    @Test
+    public void entriesExpireAfterTheirTtlEvenWithoutAnInvalidation() throws InterruptedException {
+        InvalidatingLruCache<Long, String> cache = cache(10, Duration.ofMillis(20));
+        cache.put(1L, "one", cache.generation());
+        assertEquals("one", cache.get(1L));
+
+        Thread.sleep(50);
+
+        assertNull(cache.get(1L));
+        assertEquals(List.of("one"), removed);
+    }
+
+    @Test
+    public void loadRacingWithAnInvalidationIsNotCached() {
+        InvalidatingLruCache<Long, String> cache = cache(10, Duration.ofMinutes(1));
+        long loadGeneration = cache.generation();
+        cache.invalidate(1L);
+        cache.put(1L, "stale", loadGeneration);
+
+        assertNull(cache.get(1L));
+        verify(stringRedisTemplate).convertAndSend("test", "1");
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvictedFirst() {
+        InvalidatingLruCache<Long, String> cache = cache(2, Duration.ofMinutes(1));
+        cache.put(1L, "one", cache.generation());
+        cache.put(2L, "two", cache.generation());
+        cache.get(1L);
+        cache.put(3L, "three", cache.generation());
+
+        assertEquals(2, cache.size());
+        assertEquals(List.of("two"), removed);
+        assertEquals("one", cache.get(1L));
+    }
+
+    private InvalidatingLruCache<Long, String> cache(int maxSize, Duration ttl) {
+        return new InvalidatingLruCache<>("test", Long::valueOf, maxSize, ttl, stringRedisTemplate,
+                mock(RedisMessageListenerContainer.class), value -> {
+        }, removed::add);
+    }
+}
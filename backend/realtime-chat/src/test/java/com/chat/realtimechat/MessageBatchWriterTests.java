@@ -0,0 +1,130 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.exception.chat.GroupAccessDeniedException;
+import com.chat.realtimechat.model.entity.chat.ChatGroup;
+import com.chat.realtimechat.model.entity.chat.ChatMessage;
+import com.chat.realtimechat.service.chat.GroupSummaryUpdater;
+import com.chat.realtimechat.service.chat.MessageBatchWriterImpl;
+import com.chat.realtimechat.service.chat.ReadCursorService;
+import com.chat.realtimechat.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class MessageBatchWriterTests {
+
+    private static final long DELETED_GROUP_ID = 99L;
+
+    @Test
+    public void oneBadRowFailsOnlyItsOwnSend() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("chat_group_id violates foreign key"));
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class))).thenAnswer(invocation -> {
+            if (boundGroupId(invocation.getArgument(1)) == DELETED_GROUP_ID) {
+                throw new DataIntegrityViolationException("chat_group_id violates foreign key");
+            }
+            return 1;
+        });
+
+        GroupSummaryUpdater groupSummaryUpdater = mock(GroupSummaryUpdater.class);
+        MessageBatchWriterImpl writer = writer(jdbcTemplate, groupSummaryUpdater);
+
+        List<CompletableFuture<ChatMessage>> sends = new ArrayList<>();
+        for (long groupId : new long[]{1L, 2L, DELETED_GROUP_ID, 3L}) {
+            sends.add(writer.submit(message(groupId)));
+        }
+        writer.start();
+        try {
+            assertEquals(1L, sends.get(0).get(5, TimeUnit.SECONDS).getGroup().getId());
+            assertEquals(2L, sends.get(1).get(5, TimeUnit.SECONDS).getGroup().getId());
+            ExecutionException failed = assertThrows(ExecutionException.class, () -> sends.get(2).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(DataIntegrityViolationException.class, failed.getCause());
+            assertEquals(3L, sends.get(3).get(5, TimeUnit.SECONDS).getGroup().getId());
+        } finally {
+            writer.stop();
+        }
+
+        verify(groupSummaryUpdater, times(3)).messagePersisted(any());
+    }
+
+    @Test
+    public void rowOfARemovedMemberIsDeniedAndTheRestWritten() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1, 0, Statement.SUCCESS_NO_INFO}});
+
+        GroupSummaryUpdater groupSummaryUpdater = mock(GroupSummaryUpdater.class);
+        MessageBatchWriterImpl writer = writer(jdbcTemplate, groupSummaryUpdater);
+
+        List<CompletableFuture<ChatMessage>> sends = new ArrayList<>();
+        for (long groupId : new long[]{1L, 2L, 3L}) {
+            sends.add(writer.submit(message(groupId)));
+        }
+        writer.start();
+        try {
+            assertEquals(1L, sends.get(0).get(5, TimeUnit.SECONDS).getGroup().getId());
+            ExecutionException denied = assertThrows(ExecutionException.class, () -> sends.get(1).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(GroupAccessDeniedException.class, denied.getCause());
+            assertEquals(3L, sends.get(2).get(5, TimeUnit.SECONDS).getGroup().getId());
+        } finally {
+            writer.stop();
+        }
+
+        verify(groupSummaryUpdater, times(2)).messagePersisted(any());
+    }
+
+    private static MessageBatchWriterImpl writer(JdbcTemplate jdbcTemplate, GroupSummaryUpdater groupSummaryUpdater) {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        return new MessageBatchWriterImpl(jdbcTemplate, transactionTemplate,
+                groupSummaryUpdater, mock(ReadCursorService.class), new SnowflakeIdGenerator(0),
+                new SimpleMeterRegistry(), 10, 50, 100, 50);
+    }
+
+    private static long boundGroupId(PreparedStatementSetter setter) throws SQLException {
+        long[] groupId = new long[1];
+        PreparedStatement ps = mock(PreparedStatement.class);
+        doAnswer(set -> {
+            if (set.<Integer>getArgument(0) == 5) {
+                groupId[0] = set.getArgument(1);
+            }
+            return null;
+        }).when(ps).setLong(anyInt(), anyLong());
+        setter.setValues(ps);
+        return groupId[0];
+    }
+
+    private static ChatMessage message(long groupId) {
+        ChatGroup group = new ChatGroup();
+        group.setId(groupId);
+
+        ChatMessage message = new ChatMessage();
+        message.setGroup(group);
+        message.setContent("hello");
+        message.setType(ChatMessage.MessageType.CHAT);
+        return message;
+    }
+}
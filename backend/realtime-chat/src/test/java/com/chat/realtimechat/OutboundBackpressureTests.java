@@ -0,0 +1,79 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.websocket.backpressure.OutboundBackpressure;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OutboundBackpressureTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OutboundBackpressure backpressure = new OutboundBackpressure(meterRegistry, 32, 128, 2);
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private final MessageHandler handler = mock(MessageHandler.class);
+    private final WebSocketSession session = mock(WebSocketSession.class);
+
+    @BeforeEach
+    public void connect() throws Exception {
+        when(session.getId()).thenReturn("s1");
+        backpressure.decorate(mock(WebSocketHandler.class)).afterConnectionEstablished(session);
+    }
+
+    @Test
+    public void handledFramesAreReleased() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            Message<?> frame = backpressure.preSend(frame(), channel);
+            assertNotNull(frame);
+            backpressure.afterSendCompletion(frame, channel, true, null);
+            backpressure.afterMessageHandled(frame, channel, handler, null);
+        }
+
+        assertEquals(0, pendingMax());
+        verify(session, never()).close(any(CloseStatus.class));
+    }
+
+    @Test
+    public void framesThatNeverReachTheExecutorAreReleased() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            Message<?> frame = backpressure.preSend(frame(), channel);
+            assertNotNull(frame);
+            backpressure.afterSendCompletion(frame, channel, i % 2 == 0, i % 2 == 0 ? new IllegalStateException() : null);
+        }
+
+        assertEquals(0, pendingMax());
+        verify(session, never()).close(any(CloseStatus.class));
+    }
+
+    @Test
+    public void sessionOverTheLimitIsClosed() throws Exception {
+        assertNotNull(backpressure.preSend(frame(), channel));
+        assertNotNull(backpressure.preSend(frame(), channel));
+
+        assertNull(backpressure.preSend(frame(), channel));
+        assertEquals(2, pendingMax());
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    private double pendingMax() {
+        return meterRegistry.get("chat.websocket.session.pending.max").gauge().value();
+    }
+
+    private static Message<byte[]> frame() {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId("s1");
+        accessor.setDestination("/topic/group.42");
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
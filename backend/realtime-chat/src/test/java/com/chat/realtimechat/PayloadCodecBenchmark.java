@@ -0,0 +1,64 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.websocket.codec.PayloadCodec;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Bytes on the wire and encode and decode time per frame for the typical mix of
+ * {@link PayloadCodecTests}. Not part of {@code mvn test}, run it with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class PayloadCodecBenchmark {
+
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void typicalMix() {
+        List<Object> payloads = PayloadCodecTests.typicalPayloads();
+        List<byte[]> jsonBodies = PayloadCodecTests.typicalMix();
+
+        long sockJsBytes = 0;
+        long nativeJsonBytes = 0;
+        long nativeCborBytes = 0;
+        for (byte[] json : jsonBodies) {
+            byte[] jsonFrame = PayloadCodecTests.frame(json, MimeTypeUtils.APPLICATION_JSON.toString());
+            String sockJsFrame = "a" + PayloadCodecTests.JSON_MAPPER.writeValueAsString(
+                    List.of(new String(jsonFrame, StandardCharsets.UTF_8)));
+
+            sockJsBytes += sockJsFrame.getBytes(StandardCharsets.UTF_8).length;
+            nativeJsonBytes += jsonFrame.length;
+            nativeCborBytes += PayloadCodecTests.frame(PayloadCodec.CBOR.encode(json),
+                    MimeTypeUtils.APPLICATION_OCTET_STREAM.toString()).length;
+        }
+
+        long jsonEncodeNanos = time(() -> payloads.forEach(PayloadCodecTests.JSON_MAPPER::writeValueAsBytes));
+        long cborEncodeNanos = time(() -> payloads.forEach(CBORMapper.shared()::writeValueAsBytes));
+        long transcodeNanos = time(() -> jsonBodies.forEach(PayloadCodec.CBOR::encode));
+        long jsonDecodeNanos = time(() -> jsonBodies.forEach(PayloadCodecTests.JSON_MAPPER::readTree));
+        List<byte[]> cborBodies = jsonBodies.stream().map(PayloadCodec.CBOR::encode).toList();
+        long cborDecodeNanos = time(() -> cborBodies.forEach(CBORMapper.shared()::readTree));
+
+        System.out.printf("%d frames: sockjs %d B, native json %d B, native cbor %d B%n",
+                jsonBodies.size(), sockJsBytes, nativeJsonBytes, nativeCborBytes);
+        System.out.printf("per frame: json encode %d ns, cbor encode %d ns, json->cbor %d ns, json decode %d ns, cbor decode %d ns%n",
+                jsonEncodeNanos / payloads.size(), cborEncodeNanos / payloads.size(), transcodeNanos / payloads.size(),
+                jsonDecodeNanos / payloads.size(), cborDecodeNanos / payloads.size());
+    }
+
+    private static long time(Runnable round) {
+        for (int i = 0; i < ROUNDS; i++) {
+            round.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            round.run();
+        }
+        return (System.nanoTime() - start) / ROUNDS;
+    }
+}
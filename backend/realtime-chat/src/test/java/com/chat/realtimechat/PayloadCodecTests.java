@@ -0,0 +1,166 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.dto.response.OnlineInfoResponse;
+import com.chat.realtimechat.model.dto.response.ReadCursorResponse;
+import com.chat.realtimechat.model.dto.response.TypingSnapshotResponse;
+import com.chat.realtimechat.model.entity.chat.ChatMessage;
+import com.chat.realtimechat.model.enums.MessageContentType;
+import com.chat.realtimechat.model.enums.UserStatus;
+import com.chat.realtimechat.util.SnowflakeIdGenerator;
+import com.chat.realtimechat.websocket.codec.PayloadCodec;
+import com.chat.realtimechat.websocket.codec.PayloadCodecInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PayloadCodecTests {
+
+    static final JsonMapper JSON_MAPPER = JsonMapper.builder().build();
+
+    private static final SnowflakeIdGenerator ID_GENERATOR = new SnowflakeIdGenerator(0);
+
+    @Test
+    public void cborCarriesTheSameContentAsJson() {
+        for (byte[] json : typicalMix()) {
+            byte[] cbor = PayloadCodec.CBOR.encode(json);
+            assertEquals(JSON_MAPPER.readTree(json), CBORMapper.shared().readTree(cbor));
+        }
+    }
+
+    @Test
+    public void cborFramesAreSmallerOnTheWire() {
+        long sockJsBytes = 0;
+        long nativeJsonBytes = 0;
+        long nativeCborBytes = 0;
+        for (byte[] json : typicalMix()) {
+            byte[] jsonFrame = frame(json, MimeTypeUtils.APPLICATION_JSON.toString());
+            String sockJsFrame = "a" + JSON_MAPPER.writeValueAsString(List.of(new String(jsonFrame, StandardCharsets.UTF_8)));
+
+            sockJsBytes += sockJsFrame.getBytes(StandardCharsets.UTF_8).length;
+            nativeJsonBytes += jsonFrame.length;
+            nativeCborBytes += frame(PayloadCodec.CBOR.encode(json), MimeTypeUtils.APPLICATION_OCTET_STREAM.toString()).length;
+        }
+
+        assertTrue(nativeJsonBytes < sockJsBytes);
+        assertTrue(nativeCborBytes < nativeJsonBytes);
+    }
+
+    @Test
+    public void onePublishIsEncodedOncePerCodec() {
+        PayloadCodecInterceptor interceptor = new PayloadCodecInterceptor(new SimpleMeterRegistry(), 16);
+        for (String sessionId : List.of("s1", "s2", "s3")) {
+            interceptor.connecting(connect(interceptor, sessionId, sessionId.equals("s3") ? "json" : "cbor"));
+        }
+
+        byte[] json = typicalMix().getFirst();
+        Message<?> first = interceptor.beforeHandle(delivery("s1", json.clone()), null, null);
+        Message<?> second = interceptor.beforeHandle(delivery("s2", json.clone()), null, null);
+        Message<?> plain = interceptor.beforeHandle(delivery("s3", json.clone()), null, null);
+
+        assertSame(first.getPayload(), second.getPayload());
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, StompHeaderAccessor.wrap(second).getContentType());
+        assertArrayEquals(json, (byte[]) plain.getPayload());
+    }
+
+    private static StompHeaderAccessor connect(PayloadCodecInterceptor interceptor, String sessionId, String codec) {
+        Map<String, Object> attributes = new HashMap<>();
+        interceptor.beforeHandshake(null, null, null, attributes);
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId(sessionId);
+        connect.setSessionAttributes(attributes);
+        connect.setNativeHeader(PayloadCodec.HEADER, codec);
+        return connect;
+    }
+
+    private static Message<byte[]> delivery(String sessionId, byte[] json) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(json, headers.getMessageHeaders());
+    }
+
+    static byte[] frame(byte[] body, String contentType) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        headers.setDestination("/user/queue/messages");
+        headers.setSubscriptionId("sub-0");
+        headers.setMessageId("T_sub-0@@session-x6v2jcfd@@42");
+        headers.setNativeHeader("content-type", contentType);
+        return new StompEncoder().encode(headers.getMessageHeaders(), body);
+    }
+
+    static List<byte[]> typicalMix() {
+        return typicalPayloads().stream().map(JSON_MAPPER::writeValueAsBytes).toList();
+    }
+
+    // Mostly chat messages, some replies and media, plus receipts, typing, presence and group updates.
+    static List<Object> typicalPayloads() {
+        List<Object> payloads = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            ChatMessageResponse message = message("Hey, are we still on for " + (i % 12 + 1) + " o'clock tomorrow?");
+            if (i % 5 == 0) {
+                message.setParent(message("Sure, see you there"));
+            }
+            if (i % 10 == 0) {
+                message.setContent("/api/files/" + ID_GENERATOR.nextId() + ".jpg");
+                message.setContentType(MessageContentType.IMAGE);
+            }
+            payloads.add(message);
+        }
+        for (int i = 0; i < 15; i++) {
+            payloads.add(Map.of(
+                    "type", "READ_RECEIPT",
+                    "groupId", 1042L,
+                    "members", List.of(new ReadCursorResponse(7L + i, "user" + i, LocalDateTime.now()))));
+        }
+        for (int i = 0; i < 15; i++) {
+            payloads.add(new TypingSnapshotResponse(ChatMessage.MessageType.TYPING, 1042L,
+                    List.of("anna.nowak", "piotr.k"), LocalDateTime.now()));
+        }
+        for (int i = 0; i < 5; i++) {
+            ChatMessageResponse presence = new ChatMessageResponse();
+            presence.setType(ChatMessage.MessageType.JOIN);
+            presence.setSender(new OnlineInfoResponse("Anna", "Nowak", "anna.nowak", UserStatus.ONLINE));
+            presence.setUserStatus(UserStatus.AWAY);
+            presence.setTimestamp(LocalDateTime.now());
+            payloads.add(presence);
+        }
+        for (int i = 0; i < 5; i++) {
+            payloads.add(Map.of(
+                    "type", "GROUP_UPDATED",
+                    "groupId", 1042L,
+                    "name", "Weekend trip",
+                    "imageUrl", "http://localhost:8080/api/files/group-1042.png"));
+        }
+        return payloads;
+    }
+
+    private static ChatMessageResponse message(String content) {
+        ChatMessageResponse message = new ChatMessageResponse();
+        message.setId(ID_GENERATOR.nextId());
+        message.setSender(new OnlineInfoResponse("Piotr", "Kowalski", "piotr.k", UserStatus.ONLINE));
+        message.setContent(content);
+        message.setGroupId(1042L);
+        message.setGroupName("Weekend trip");
+        message.setTimestamp(LocalDateTime.now());
+        message.setType(ChatMessage.MessageType.CHAT);
+        message.setContentType(MessageContentType.TEXT);
+        return message;
+    }
+}
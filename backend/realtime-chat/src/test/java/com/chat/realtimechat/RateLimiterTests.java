@@ -0,0 +1,105 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.exception.chat.RateLimitExceededException;
+import com.chat.realtimechat.model.enums.RateLimitType;
+import com.chat.realtimechat.service.chat.RateLimiterImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class RateLimiterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RateLimiterImpl rateLimiter = new RateLimiterImpl(new MockEnvironment()
+            .withProperty("chat.rateLimit.chatSend.perSecond", "1")
+            .withProperty("chat.rateLimit.chatSend.burst", "3")
+            .withProperty("chat.rateLimit.typing.perSecond", "0.001")
+            .withProperty("chat.rateLimit.typing.burst", "100"),
+            null, meterRegistry);
+
+    @Test
+    public void burstIsAllowedThenRejectedWithRetryAfter() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire(RateLimitType.CHAT_SEND, "alice");
+        }
+
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+                () -> rateLimiter.acquire(RateLimitType.CHAT_SEND, "alice"));
+        assertTrue(ex.getRetryAfterMs() > 0 && ex.getRetryAfterMs() <= 1000);
+
+        rateLimiter.acquire(RateLimitType.CHAT_SEND, "bob");
+        assertTrue(rateLimiter.tryAcquire(RateLimitType.STATUS, "alice"));
+        assertEquals(1.0, meterRegistry.get("chat.ratelimit.rejected")
+                .tag("limit", "chatSend").tag("scope", "local").counter().count());
+    }
+
+    @Test
+    public void releasedTokenCanBeTakenAgain() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire(RateLimitType.CHAT_SEND, "alice");
+        }
+        assertFalse(rateLimiter.tryAcquire(RateLimitType.CHAT_SEND, "alice"));
+
+        rateLimiter.release(RateLimitType.CHAT_SEND, "alice");
+        assertTrue(rateLimiter.tryAcquire(RateLimitType.CHAT_SEND, "alice"));
+        assertFalse(rateLimiter.tryAcquire(RateLimitType.CHAT_SEND, "alice"));
+    }
+
+    @Test
+    public void globalRejectionDoesNotUseUpTheLocalBucket() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        RateLimiterImpl distributed = new RateLimiterImpl(new MockEnvironment()
+                .withProperty("chat.rateLimit.redis.enabled", "true")
+                .withProperty("chat.rateLimit.chatSend.perSecond", "1")
+                .withProperty("chat.rateLimit.chatSend.burst", "2"),
+                redis, meterRegistry);
+
+        when(redis.execute(any(RedisScript.class), anyList(), any(), any())).thenReturn(500_000L);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(RateLimitExceededException.class, () -> distributed.acquire(RateLimitType.CHAT_SEND, "dave"));
+        }
+
+        when(redis.execute(any(RedisScript.class), anyList(), any(), any())).thenReturn(0L);
+        distributed.acquire(RateLimitType.CHAT_SEND, "dave");
+        distributed.acquire(RateLimitType.CHAT_SEND, "dave");
+        assertEquals(5.0, meterRegistry.get("chat.ratelimit.rejected")
+                .tag("limit", "chatSend").tag("scope", "global").counter().count());
+    }
+
+    @Test
+    public void concurrentCallersNeverExceedTheBurst() throws Exception {
+        AtomicInteger allowed = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        if (rateLimiter.tryAcquire(RateLimitType.TYPING, "carol")) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+
+        assertEquals(100, allowed.get());
+    }
+}
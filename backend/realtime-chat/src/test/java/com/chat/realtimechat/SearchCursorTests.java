@@ -0,0 +1,32 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.exception.chat.InvalidCursorException;
+import com.chat.realtimechat.util.SearchCursor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchCursorTests {
+
+    @Test
+    public void cursorRoundTripsForTheSameQueryAndGroup() {
+        String cursor = SearchCursor.encode("hello world", 7L, 0.0607927f, 123456789L, 987654321L);
+
+        SearchCursor.Position position = SearchCursor.decode(cursor, "hello world", 7L);
+
+        assertEquals(0.0607927f, position.rank());
+        assertEquals(123456789L, position.messageId());
+        assertEquals(987654321L, position.windowEnd());
+        assertEquals(42L, SearchCursor.decode(SearchCursor.encode("hello", null, 1f, 42L, 50L), "hello", null).messageId());
+    }
+
+    @Test
+    public void cursorIsRejectedForAnotherQueryOrGroup() {
+        String cursor = SearchCursor.encode("hello", 7L, 0.5f, 1L, 1L);
+
+        assertThrows(InvalidCursorException.class, () -> SearchCursor.decode(cursor, "goodbye", 7L));
+        assertThrows(InvalidCursorException.class, () -> SearchCursor.decode(cursor, "hello", 8L));
+        assertThrows(InvalidCursorException.class, () -> SearchCursor.decode(cursor, "hello", null));
+        assertThrows(InvalidCursorException.class, () -> SearchCursor.decode("not-a-cursor", "hello", 7L));
+    }
+}
@@ -0,0 +1,81 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.util.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnowflakeIdGeneratorTests {
+
+    private static final int NODES = 4;
+    private static final int THREADS_PER_NODE = 4;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    public void idsAreUniqueAcrossNodesAndThreads() throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(NODES * THREADS_PER_NODE);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int node = 0; node < NODES; node++) {
+                SnowflakeIdGenerator generator = new SnowflakeIdGenerator(node);
+                int nodeId = node;
+
+                for (int t = 0; t < THREADS_PER_NODE; t++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        long previous = Long.MIN_VALUE;
+                        for (int i = 0; i < IDS_PER_THREAD; i++) {
+                            long id = generator.nextId();
+                            assertTrue(id > previous, "ids must increase per node");
+                            assertEquals(nodeId, SnowflakeIdGenerator.nodeIdOf(id));
+                            assertTrue(ids.add(id), "duplicate id " + id);
+                            previous = id;
+                        }
+                        return null;
+                    }));
+                }
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(NODES * THREADS_PER_NODE * IDS_PER_THREAD, ids.size());
+    }
+
+    @Test
+    public void idEncodesCreationTime() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+
+        long before = System.currentTimeMillis();
+        long id = generator.nextId();
+        long after = System.currentTimeMillis();
+
+        long timestamp = SnowflakeIdGenerator.timestampOf(id);
+        assertTrue(timestamp >= before - 1 && timestamp <= after + 1);
+        assertEquals(7, SnowflakeIdGenerator.nodeIdOf(id));
+    }
+
+    @Test
+    public void rejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+}
@@ -0,0 +1,91 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.websocket.executor.StripedChannelExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StripedChannelExecutorTests {
+
+    private static final int GROUPS = 20;
+    private static final int MESSAGES_PER_GROUP = 100;
+
+    @Test
+    public void messagesOfAGroupAreHandledInOrderAcrossLanes() throws InterruptedException {
+        StripedChannelExecutor executor = new StripedChannelExecutor(8, 64, 10000, false, new SimpleMeterRegistry());
+        Map<Long, List<Integer>> handled = new ConcurrentHashMap<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(GROUPS * MESSAGES_PER_GROUP);
+
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+        channel.subscribe(message -> {
+            JsonNode body = JsonMapper.shared().readTree((byte[]) message.getPayload());
+            long groupId = body.get("groupId").asLong();
+            int sequence = Integer.parseInt(body.get("content").asString());
+            handled.computeIfAbsent(groupId, id -> new CopyOnWriteArrayList<>()).add(sequence);
+            threads.add(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        try {
+            for (int i = 0; i < MESSAGES_PER_GROUP; i++) {
+                for (long groupId = 1; groupId <= GROUPS; groupId++) {
+                    channel.send(send(groupId, i, "session-" + ThreadLocalRandom.current().nextInt(50)));
+                }
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.destroy();
+        }
+
+        List<Integer> expected = IntStream.range(0, MESSAGES_PER_GROUP).boxed().toList();
+        handled.values().forEach(sequence -> assertEquals(expected, sequence));
+        assertEquals(GROUPS, handled.size());
+        assertTrue(threads.size() > 1);
+    }
+
+    @Test
+    public void virtualThreadsGetTheirOwnLaneCount() {
+        assertEquals(8, laneCount(8, false));
+        assertEquals(64, laneCount(8, true));
+        assertEquals(0, laneCount(0, true));
+    }
+
+    // Every lane exports its queue depth.
+    private static int laneCount(int lanes, boolean virtualThreads) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StripedChannelExecutor executor = new StripedChannelExecutor(lanes, 64, 100, virtualThreads, registry);
+        try {
+            return registry.find("chat.websocket.inbound.lane.queue").gauges().size();
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    private static Message<byte[]> send(long groupId, int sequence, String sessionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination("/app/chat.sendMessage");
+        headers.setSessionId(sessionId);
+        String body = "{\"groupId\":" + groupId + ",\"content\":\"" + sequence + "\",\"type\":\"CHAT\"}";
+        return MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8), headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,181 @@
+package com.chat.realtimechat;
+
+import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.dto.response.GroupChangeResponse;
+import com.chat.realtimechat.model.dto.response.SyncResponse;
+import com.chat.realtimechat.model.entity.chat.ChatGroup;
+import com.chat.realtimechat.model.entity.chat.ChatMessage;
+import com.chat.realtimechat.model.entity.chat.GroupChangeEvent;
+import com.chat.realtimechat.model.enums.GroupChangeType;
+import com.chat.realtimechat.repository.chat.ChatGroupMemberRepository;
+import com.chat.realtimechat.repository.chat.ChatMessageRepository;
+import com.chat.realtimechat.repository.chat.GroupChangeEventRepository;
+import com.chat.realtimechat.service.chat.GroupChangeLog;
+import com.chat.realtimechat.service.chat.MessageArchive;
+import com.chat.realtimechat.service.chat.SyncServiceImpl;
+import com.chat.realtimechat.service.chat.UnreadCounterService;
+import com.chat.realtimechat.service.users.UserProfile;
+import com.chat.realtimechat.service.users.UserProfileCache;
+import com.chat.realtimechat.util.HistoryCursor;
+import com.chat.realtimechat.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SyncServiceTests {
+
+    private static final long USER_ID = 7L;
+
+    private final ChatMessageRepository chatMessageRepository = mock(ChatMessageRepository.class);
+    private final GroupChangeEventRepository groupChangeEventRepository = mock(GroupChangeEventRepository.class);
+    private final ChatGroupMemberRepository chatGroupMemberRepository = mock(ChatGroupMemberRepository.class);
+    private final GroupChangeLog groupChangeLog = mock(GroupChangeLog.class);
+    private final MessageArchive messageArchive = mock(MessageArchive.class);
+    private final UserProfileCache userProfileCache = mock(UserProfileCache.class);
+
+    private final List<ChatMessage> messages = new ArrayList<>();
+    private final List<GroupChangeEvent> events = new ArrayList<>();
+
+    private SyncServiceImpl syncService;
+
+    @BeforeEach
+    public void setUp() {
+        when(userProfileCache.getByUsername("alice")).thenReturn(new UserProfile(USER_ID, "alice", "Alice", "A"));
+        when(chatGroupMemberRepository.findActiveGroupIdsByUserId(USER_ID)).thenReturn(List.of(1L, 2L));
+        when(chatGroupMemberRepository.findReadCursorsChanged(eq(USER_ID), any(), any())).thenReturn(List.of());
+
+        when(chatMessageRepository.findByGroupIdInAndIdGreaterThanOrderByIdAsc(anyCollection(), anyLong(), any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    Collection<Long> groupIds = invocation.getArgument(0);
+                    long afterId = invocation.getArgument(1);
+                    Limit limit = invocation.getArgument(2);
+                    return messages.stream()
+                            .filter(m -> groupIds.contains(m.getGroup().getId()) && m.getId() > afterId)
+                            .sorted(Comparator.comparing(ChatMessage::getId))
+                            .limit(limit.max())
+                            .toList();
+                });
+        when(groupChangeEventRepository.findVisibleAfter(eq(USER_ID), anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(1);
+            Limit limit = invocation.getArgument(2);
+            return events.stream().filter(e -> e.getId() > afterId).limit(limit.max()).toList();
+        });
+
+        syncService = new SyncServiceImpl(chatMessageRepository, groupChangeEventRepository, chatGroupMemberRepository,
+                groupChangeLog, messageArchive, mock(UnreadCounterService.class), userProfileCache,
+                new SimpleMeterRegistry(), 5000);
+    }
+
+    @Test
+    public void pagesThroughMessagesAndEventsOfAllGroupsInIdOrder() {
+        long base = SnowflakeIdGenerator.minIdAt(Instant.now().minus(Duration.ofHours(1)));
+        for (int i = 1; i <= 7; i++) {
+            messages.add(message(base + i, i % 2 == 0 ? 1L : 2L));
+        }
+        events.add(event(base + 4 * 1000 + 1));
+        messages.add(message(base + 5000, 1L));
+
+        List<Long> synced = new ArrayList<>();
+        String cursor = HistoryCursor.encode(base);
+        SyncResponse page;
+        int pages = 0;
+        do {
+            page = syncService.sync("alice", cursor, 3);
+            assertFalse(page.isResetRequired());
+            assertTrue(page.getMessages().size() + page.getEvents().size() <= 3);
+            Stream.concat(page.getMessages().stream().map(ChatMessageResponse::getId),
+                            page.getEvents().stream().map(GroupChangeResponse::getId))
+                    .sorted()
+                    .forEach(synced::add);
+            assertTrue(HistoryCursor.decode(page.getNextCursor()) >= HistoryCursor.decode(cursor));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (page.isHasMore());
+
+        List<Long> expected = Stream.concat(messages.stream().map(ChatMessage::getId), events.stream().map(GroupChangeEvent::getId))
+                .sorted()
+                .toList();
+        assertEquals(expected, synced);
+        assertEquals(3, pages);
+
+        SyncResponse caughtUp = syncService.sync("alice", cursor, 3);
+        assertTrue(caughtUp.getMessages().isEmpty());
+        assertFalse(caughtUp.isHasMore());
+    }
+
+    @Test
+    public void cursorDoesNotMovePastUnsettledIds() {
+        long settled = SnowflakeIdGenerator.minIdAt(Instant.now().minus(Duration.ofMinutes(1)));
+        long fresh = SnowflakeIdGenerator.minIdAt(Instant.now().plus(Duration.ofMinutes(1)));
+        for (int i = 1; i <= 4; i++) {
+            messages.add(message(fresh + i, 1L));
+        }
+
+        SyncResponse page = syncService.sync("alice", HistoryCursor.encode(settled), 2);
+
+        assertEquals(List.of(fresh + 1, fresh + 2), page.getMessages().stream().map(ChatMessageResponse::getId).toList());
+        assertFalse(page.isHasMore());
+        long next = HistoryCursor.decode(page.getNextCursor());
+        assertTrue(next >= settled && next < fresh);
+
+        SyncResponse again = syncService.sync("alice", page.getNextCursor(), 2);
+        assertEquals(fresh + 1, again.getMessages().getFirst().getId());
+    }
+
+    @Test
+    public void missingOrExpiredCursorRequiresReset() {
+        long now = SnowflakeIdGenerator.minIdAt(Instant.now());
+        long retained = SnowflakeIdGenerator.minIdAt(Instant.now().minus(Duration.ofDays(30)));
+        when(groupChangeLog.oldestRetainedId()).thenReturn(retained);
+        when(messageArchive.archiveHorizonId()).thenReturn(retained - 1000);
+
+        SyncResponse fresh = syncService.sync("alice", null, 10);
+        assertTrue(fresh.isResetRequired());
+        assertTrue(HistoryCursor.decode(fresh.getNextCursor()) < now);
+
+        assertTrue(syncService.sync("alice", HistoryCursor.encode(retained - 1), 10).isResetRequired());
+
+        when(messageArchive.archiveHorizonId()).thenReturn(retained + 1000);
+        assertTrue(syncService.sync("alice", HistoryCursor.encode(retained + 1), 10).isResetRequired());
+        verify(chatMessageRepository, never()).findByGroupIdInAndIdGreaterThanOrderByIdAsc(anyCollection(), anyLong(), any(Limit.class));
+
+        when(messageArchive.archiveHorizonId()).thenReturn(retained - 1000);
+        assertFalse(syncService.sync("alice", HistoryCursor.encode(retained + 1), 10).isResetRequired());
+    }
+
+    private static ChatMessage message(long id, long groupId) {
+        ChatGroup group = new ChatGroup();
+        group.setId(groupId);
+        group.setName("group" + groupId);
+
+        ChatMessage message = new ChatMessage();
+        message.setId(id);
+        message.setGroup(group);
+        message.setContent("message " + id);
+        message.setType(ChatMessage.MessageType.CHAT);
+        return message;
+    }
+
+    private static GroupChangeEvent event(long id) {
+        GroupChangeEvent event = new GroupChangeEvent();
+        event.setId(id);
+        event.setGroupId(1L);
+        event.setUserId(USER_ID);
+        event.setType(GroupChangeType.values()[0]);
+        event.setPayload("{}");
+        return event;
+    }
+}
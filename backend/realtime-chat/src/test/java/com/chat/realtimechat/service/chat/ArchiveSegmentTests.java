@@ -0,0 +1,136 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.dto.response.OnlineInfoResponse;
+import com.chat.realtimechat.model.enums.MessageContentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchiveSegmentTests {
+
+    private static final JsonMapper JSON = JsonMapper.shared();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void writtenMessagesReadBackInOrder() throws IOException {
+        ArchiveSegment segment = ArchiveSegment.write(dir.resolve("a.seg"), messages(1, 25), 4, JSON);
+        ArchiveSegment reopened = ArchiveSegment.open(segment.path());
+
+        assertEquals(1L, reopened.firstId());
+        assertEquals(25L, reopened.lastId());
+        assertEquals(Set.of("user0", "user1", "user2"), reopened.senders());
+
+        List<ChatMessageResponse> all = reopened.readAll(JSON);
+        assertEquals(ids(1, 25), all.stream().map(ChatMessageResponse::getId).toList());
+        assertEquals("message 7", all.get(6).getContent());
+        assertEquals("user1", all.get(6).getSender().getUsername());
+
+        assertEquals(List.of(12L, 11L, 10L), idsOf(reopened.readBefore(13, 3, JSON)));
+        assertEquals(List.of(1L), idsOf(reopened.readBefore(2, 10, JSON)));
+        assertEquals(List.of(), idsOf(reopened.readBefore(1, 10, JSON)));
+        assertEquals(List.of(9L, 10L, 11L, 12L, 13L), idsOf(reopened.readAfter(8, 5, JSON)));
+        assertEquals(List.of(), idsOf(reopened.readAfter(25, 5, JSON)));
+
+        List<ChatMessageResponse> images = reopened.readBefore(Long.MAX_VALUE, 3,
+                message -> message.getContentType() == MessageContentType.IMAGE, JSON);
+        assertEquals(List.of(25L, 20L, 15L), idsOf(images));
+    }
+
+    @Test
+    public void emptySegmentHasNoRange() throws IOException {
+        ArchiveSegment segment = ArchiveSegment.write(dir.resolve("empty.seg"), List.of(), 4, JSON);
+
+        assertEquals(Long.MAX_VALUE, segment.firstId());
+        assertEquals(Long.MIN_VALUE, segment.lastId());
+        assertTrue(segment.readAll(JSON).isEmpty());
+    }
+
+    @Test
+    public void foreignAndTruncatedFilesAreRejected() throws IOException {
+        Path foreign = Files.write(dir.resolve("foreign.seg"), "not a segment at all, just text".getBytes());
+        assertThrows(IOException.class, () -> ArchiveSegment.open(foreign));
+
+        Path segment = ArchiveSegment.write(dir.resolve("t.seg"), messages(1, 10), 4, JSON).path();
+        byte[] bytes = Files.readAllBytes(segment);
+        Path truncated = Files.write(dir.resolve("truncated.seg"), Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> ArchiveSegment.open(truncated));
+    }
+
+    @Test
+    public void garbledIndexIsRejected() throws IOException {
+        Path segment = ArchiveSegment.write(dir.resolve("i.seg"), messages(1, 10), 4, JSON).path();
+        byte[] bytes = Files.readAllBytes(segment);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int footer = bytes.length - Long.BYTES - 2 * Integer.BYTES;
+
+        // Block count far beyond what the index region can hold.
+        buffer.putInt(footer + Long.BYTES, Integer.MAX_VALUE);
+        Path hugeCount = Files.write(dir.resolve("count.seg"), bytes);
+        assertThrows(IOException.class, () -> ArchiveSegment.open(hugeCount));
+
+        // First block pointing past the index.
+        bytes = Files.readAllBytes(segment);
+        buffer = ByteBuffer.wrap(bytes);
+        long indexOffset = buffer.getLong(footer);
+        buffer.putLong((int) indexOffset + 2 * Long.BYTES, indexOffset);
+        Path badOffset = Files.write(dir.resolve("offset.seg"), bytes);
+        assertThrows(IOException.class, () -> ArchiveSegment.open(badOffset));
+    }
+
+    @Test
+    public void corruptBlockFailsTheRead() throws IOException {
+        Path segment = ArchiveSegment.write(dir.resolve("b.seg"), messages(1, 10), 4, JSON).path();
+        byte[] bytes = Files.readAllBytes(segment);
+        // The first block starts right after the header.
+        for (int i = Integer.BYTES + 1; i < Integer.BYTES + 1 + 16; i++) {
+            bytes[i] ^= (byte) 0x5A;
+        }
+        Path corrupt = Files.write(dir.resolve("corrupt.seg"), bytes);
+
+        ArchiveSegment opened = ArchiveSegment.open(corrupt);
+        assertThrows(IOException.class, () -> opened.readAll(JSON));
+        assertThrows(IOException.class, () -> opened.readAfter(0, 1, JSON));
+    }
+
+    private static List<ChatMessageResponse> messages(long from, long to) {
+        List<ChatMessageResponse> messages = new ArrayList<>();
+        for (long id = from; id <= to; id++) {
+            ChatMessageResponse message = new ChatMessageResponse();
+            message.setId(id);
+            message.setGroupId(1L);
+            message.setContent("message " + id);
+            message.setTimestamp(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(id));
+            message.setContentType(id % 5 == 0 ? MessageContentType.IMAGE : MessageContentType.TEXT);
+            message.setSender(new OnlineInfoResponse("Name", "Surname", "user" + (id % 3), null));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static List<Long> ids(long from, long to) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = from; id <= to; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static List<Long> idsOf(List<ChatMessageResponse> messages) {
+        return messages.stream().map(ChatMessageResponse::getId).toList();
+    }
+}
@@ -0,0 +1,93 @@
+package com.chat.realtimechat.service.chat;
+
+import com.chat.realtimechat.model.dto.response.ChatMessageResponse;
+import com.chat.realtimechat.model.enums.MessageContentType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MessageArchiveTests {
+
+    private static final JsonMapper JSON = JsonMapper.shared();
+    private static final long GROUP_ID = 1L;
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void pagesAcrossOverlappingSegmentsInBothDirections() throws IOException {
+        write("1-10", messages(1, 10));
+        write("8-20", messages(8, 20));
+        write("21-30", messages(21, 30));
+        MessageArchiveImpl archive = archive(60000);
+
+        assertEquals(ids(30, 26), idsOf(archive.readBefore(GROUP_ID, Long.MAX_VALUE, 5)));
+        assertEquals(ids(22, 16), idsOf(archive.readBefore(GROUP_ID, 23, 7)));
+        assertEquals(ids(10, 6), idsOf(archive.readBefore(GROUP_ID, 11, 5)));
+        assertEquals(ids(4, 1), idsOf(archive.readBefore(GROUP_ID, 5, 10)));
+        assertEquals(ids(6, 10), idsOf(archive.readAfter(GROUP_ID, 5, 5)));
+        assertEquals(ids(19, 23), idsOf(archive.readAfter(GROUP_ID, 18, 5)));
+        assertEquals(List.of(), archive.readAfter(GROUP_ID, 30, 5));
+        assertEquals(List.of(30L, 25L, 20L), idsOf(archive.readBefore(GROUP_ID, Long.MAX_VALUE, 3, MessageContentType.IMAGE)));
+        assertEquals(30L, archive.newestArchivedId(GROUP_ID));
+    }
+
+    @Test
+    public void directoryIsCheckedAgainOnlyAfterTheRecheckInterval() throws IOException {
+        write("1-10", messages(1, 10));
+        MessageArchiveImpl cached = archive(60000);
+        MessageArchiveImpl uncached = archive(0);
+        assertEquals(10L, cached.newestArchivedId(GROUP_ID));
+        assertEquals(10L, uncached.newestArchivedId(GROUP_ID));
+
+        // Written by the node that ran the archiver.
+        write("11-20", messages(11, 20));
+
+        assertEquals(10L, cached.newestArchivedId(GROUP_ID));
+        assertEquals(20L, uncached.newestArchivedId(GROUP_ID));
+    }
+
+    private MessageArchiveImpl archive(long recheckMs) {
+        return new MessageArchiveImpl(null, null, null, null, null, JSON, new SimpleMeterRegistry(),
+                root.toString(), 180, 90, 10000, 4, 100, recheckMs);
+    }
+
+    private void write(String name, List<ChatMessageResponse> messages) throws IOException {
+        Path dir = Files.createDirectories(root.resolve(Long.toString(GROUP_ID)));
+        ArchiveSegment.write(dir.resolve(name + ArchiveSegment.EXTENSION), messages, 4, JSON);
+    }
+
+    private static List<ChatMessageResponse> messages(long from, long to) {
+        List<ChatMessageResponse> messages = new ArrayList<>();
+        for (long id = from; id <= to; id++) {
+            ChatMessageResponse message = new ChatMessageResponse();
+            message.setId(id);
+            message.setGroupId(GROUP_ID);
+            message.setContent("message " + id);
+            message.setContentType(id % 5 == 0 ? MessageContentType.IMAGE : MessageContentType.TEXT);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static List<Long> ids(long from, long to) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = from; from <= to ? id <= to : id >= to; id += from <= to ? 1 : -1) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static List<Long> idsOf(List<ChatMessageResponse> messages) {
+        return messages.stream().map(ChatMessageResponse::getId).toList();
+    }
+}
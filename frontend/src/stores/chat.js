@@ -102,11 +102,11 @@ export const useChatStore = defineStore('chat', () => {
     }
   }
 
-  const fetchHistory = async (groupId, page = 0) => {
+  const fetchHistory = async (groupId, before = null) => {
     try {
-      const response = await api.get(`/chat/history/${groupId}`, {
+      const response = await api.get(`/chat/history/${groupId}/cursor`, {
         params: {
-          page,
+          before: before || undefined,
           size: CHAT_PAGE_SIZE
         }
       })
@@ -114,21 +114,19 @@ export const useChatStore = defineStore('chat', () => {
       const index = groups.value.findIndex(g => g.id === groupId)
 
       if (index !== -1) {
-        const newMessages = response.data
+        const { items, nextCursor, hasMore } = response.data
         const group = groups.value[index]
 
-        if (page === 0) {
-          group.messages = newMessages
-          group.page = 0
-          group.hasMore = newMessages.length === CHAT_PAGE_SIZE
+        if (!before) {
+          group.messages = items
         } else {
           const existingIds = new Set(group.messages.map(m => m.id))
-          const uniqueNew = newMessages.filter(m => !existingIds.has(m.id))
+          const uniqueNew = items.filter(m => !existingIds.has(m.id))
 
           group.messages = [...uniqueNew, ...group.messages]
-          group.page = page
-          group.hasMore = newMessages.length === CHAT_PAGE_SIZE
         }
+        group.nextCursor = nextCursor
+        group.hasMore = hasMore
       }
     } catch (err) {
       console.error('Failed to fetch history:', err)
@@ -139,8 +137,7 @@ export const useChatStore = defineStore('chat', () => {
     if (!activeGroup.value || !activeGroup.value.hasMore) return
 
     try {
-      const nextPage = (activeGroup.value.page || 0) + 1
-      await fetchHistory(activeGroup.value.id, nextPage)
+      await fetchHistory(activeGroup.value.id, activeGroup.value.nextCursor)
     } catch (e) {
       console.error("Load more failed", e)
     }
@@ -222,7 +219,7 @@ export const useChatStore = defineStore('chat', () => {
       }
 
       if (message.type === 'READ_RECEIPT') {
-        updateMemberReadTime(message.groupId, message.member)
+        (message.members || []).forEach(member => updateMemberReadTime(message.groupId, member))
         return
       }
 
@@ -344,6 +341,84 @@ export const useChatStore = defineStore('chat', () => {
     }
   }
 
+  const syncCursor = ref(null)
+
+  const applyGroupChange = (event, currentUsername) => {
+    const group = groups.value.find(g => g.id === event.groupId)
+    if (!group) {
+      return event.type === 'MEMBER_ADDED'
+    }
+
+    if (event.type === 'MEMBER_REMOVED') {
+      const removed = (group.members || []).find(m => m.id === event.userId)
+      if (removed && removed.username === currentUsername) {
+        removeGroup(event.groupId)
+      } else {
+        handleIncomingMessage({ type: 'MEMBER_REMOVED', groupId: event.groupId, userIds: [event.userId] })
+      }
+    } else if (event.type === 'MEMBER_ADDED') {
+      handleIncomingMessage({ type: 'MEMBER_ADDED', groupId: event.groupId, members: [event.payload] })
+    } else if (event.payload) {
+      handleIncomingMessage(event.payload)
+    }
+    return false
+  }
+
+  // Catches up on everything missed while disconnected. The first call only fetches a cursor.
+  const sync = async (currentUsername) => {
+    if (!syncCursor.value) {
+      const response = await api.get('/chat/sync')
+      syncCursor.value = response.data.nextCursor
+      return
+    }
+
+    let hasMore = true
+    let missingGroups = false
+    while (hasMore) {
+      const { data } = await api.get('/chat/sync', { params: { cursor: syncCursor.value } })
+
+      if (data.resetRequired) {
+        syncCursor.value = data.nextCursor
+        await fetchGroups()
+        if (activeGroupId.value) {
+          await fetchHistory(activeGroupId.value)
+        }
+        return
+      }
+
+      data.events.forEach(event => {
+        missingGroups = applyGroupChange(event, currentUsername) || missingGroups
+      })
+
+      data.messages.forEach(message => {
+        const group = groups.value.find(g => g.id === message.groupId)
+        if (!group) {
+          missingGroups = true
+        } else if (!group.messages.some(m => m.id === message.id)) {
+          handleIncomingMessage(message)
+        }
+      })
+
+      Object.entries(data.readCursors).forEach(([groupId, members]) => {
+        members.forEach(member => updateMemberReadTime(Number(groupId), member))
+      })
+
+      Object.entries(data.unreadCounts).forEach(([groupId, count]) => {
+        const group = groups.value.find(g => g.id === Number(groupId))
+        if (group) {
+          group.unreadCount = count
+        }
+      })
+
+      syncCursor.value = data.nextCursor
+      hasMore = data.hasMore
+    }
+
+    if (missingGroups) {
+      await fetchGroups()
+    }
+  }
+
   return {
     groups,
     sortedGroups,
@@ -367,6 +442,7 @@ export const useChatStore = defineStore('chat', () => {
     unmuteGroup,
     removeGroup,
     updateMemberReadTime,
-    loadMoreMessages
+    loadMoreMessages,
+    sync
   }
 })